@@ -0,0 +1,36 @@
+#!/bin/sh
+# Builds the application and the JMH benchmarks and runs them, reporting throughput, latency percentiles
+# (SampleTime mode) and allocation rate (the gc profiler). JMH and its dependencies are downloaded from
+# Maven Central into bench/lib on the first run. Any arguments are passed to JMH, for example:
+#
+#   bench/run.sh                                    run every benchmark
+#   bench/run.sh LookupBenchmark -p dimension=50    run one class with a smaller dimension
+#
+set -e
+cd "$(dirname "$0")/.."
+
+JMH_VERSION=1.37
+LIB=bench/lib
+CLASSES=bench/classes
+REPOSITORY=https://repo1.maven.org/maven2
+
+mkdir -p "$LIB"
+for artifact in \
+    "org/openjdk/jmh/jmh-core/$JMH_VERSION/jmh-core-$JMH_VERSION.jar" \
+    "org/openjdk/jmh/jmh-generator-annprocess/$JMH_VERSION/jmh-generator-annprocess-$JMH_VERSION.jar" \
+    "net/sf/jopt-simple/jopt-simple/5.0.4/jopt-simple-5.0.4.jar" \
+    "org/apache/commons/commons-math3/3.6.1/commons-math3-3.6.1.jar"; do
+    jar="$LIB/$(basename "$artifact")"
+    [ -f "$jar" ] || curl -fsSL -o "$jar" "$REPOSITORY/$artifact"
+done
+
+JARS=$(echo "$LIB"/*.jar | tr ' ' ':')
+
+rm -rf "$CLASSES"
+mkdir -p "$CLASSES"
+javac -d "$CLASSES" --enable-preview --release 25 --add-modules jdk.incubator.vector \
+    -cp "$JARS" -processorpath "$JARS" \
+    src/ie/atu/sw/*.java bench/src/ie/atu/sw/*.java
+
+java --enable-preview --add-modules jdk.incubator.vector -cp "$CLASSES:$JARS" \
+    org.openjdk.jmh.Main -prof gc -rf json -rff bench/results.json "$@"
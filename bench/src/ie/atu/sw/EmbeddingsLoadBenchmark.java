@@ -0,0 +1,54 @@
+package ie.atu.sw;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures how long it takes to load the synthetic embeddings file with each loader.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "--add-modules", "jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class EmbeddingsLoadBenchmark {
+    @Param({"20000"})
+    public int extraWords;
+
+    @Param({"300"})
+    public int dimension;
+
+    private SyntheticData data;
+    private String binaryFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        data = SyntheticData.generate(extraWords, dimension, 1);
+        binaryFile = data.directory().resolve("embeddings.bin").toString();
+        new BinaryEmbeddingsConverter().convert(data.embeddingsFile().toString(), binaryFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        data.delete();
+    }
+
+    @Benchmark
+    public EmbeddingsStore gloveLoader() throws Throwable {
+        GloVEEmbeddingsLoader loader = new GloVEEmbeddingsLoader();
+        loader.processFile(data.embeddingsFile().toString(), null);
+        return loader;
+    }
+
+    @Benchmark
+    public EmbeddingsStore parallelLoader() throws Throwable {
+        return new ParallelEmbeddingsLoader().load(data.embeddingsFile().toString());
+    }
+
+    @Benchmark
+    public EmbeddingsStore binaryStore() throws Throwable {
+        return BinaryEmbeddingsStore.open(binaryFile);
+    }
+}
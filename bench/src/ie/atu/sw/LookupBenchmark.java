@@ -0,0 +1,57 @@
+package ie.atu.sw;
+
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures replacing a single word: the nearest-word search for rare words, and processWord over a mix of
+ * common and rare words as they occur in the corpus.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "--add-modules", "jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class LookupBenchmark {
+    @Param({"20000"})
+    public int extraWords;
+
+    @Param({"300"})
+    public int dimension;
+
+    private SyntheticData data;
+    private MapGoogle1000 mapGoogle1000;
+    private String[] rareWords;
+    private String[] corpusWords;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        data = SyntheticData.generate(extraWords, dimension, 2000);
+        mapGoogle1000 = data.loadModel();
+        rareWords = data.rareWords().toArray(new String[0]);
+        List<String> lines = Files.readAllLines(data.corpusFile());
+        corpusWords = String.join(" ", lines).toLowerCase().replaceAll("[^a-z' ]", "").split(" +");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        data.delete();
+    }
+
+    @Benchmark
+    public String findMostSimilarWord() {
+        next = next + 1 == rareWords.length ? 0 : next + 1;
+        return mapGoogle1000.findMostSimilarWord(rareWords[next]);
+    }
+
+    @Benchmark
+    public String processWord() {
+        next = next + 1 >= corpusWords.length ? 0 : next + 1;
+        return mapGoogle1000.processWord(corpusWords[next]);
+    }
+}
@@ -0,0 +1,79 @@
+package ie.atu.sw;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the nearest-word search for rare words with the brute-force scan of the candidate matrix against
+ * the projected index, which prunes on a few principal components and re-ranks the survivors exactly. The
+ * vectors' component spreads fall off with the decay parameter: at 0 they are isotropic, the worst case for
+ * the projection, and at 1 most of their energy lies in a few directions, as in trained embeddings. Setup
+ * checks that both searches agree on every rare word.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "--add-modules", "jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class PrefilterBenchmark {
+    @Param({"20000"})
+    public int extraWords;
+
+    @Param({"300"})
+    public int dimension;
+
+    @Param({"8", "16"})
+    public int components;
+
+    @Param({"0.0", "1.0"})
+    public double decay;
+
+    private SyntheticData data;
+    private CandidateMatrix matrix;
+    private ProjectedCandidateIndex projected;
+    private float[][] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        data = SyntheticData.generate(extraWords, dimension, 10, decay);
+        MapGoogle1000 mapGoogle1000 = data.loadModel();
+        matrix = mapGoogle1000.getCandidateMatrix();
+        projected = new ProjectedCandidateIndex(matrix, components);
+
+        List<float[]> vectors = new ArrayList<>();
+        for (String word : data.rareWords()) {
+            float[] query = mapGoogle1000.getEmbeddings().unitVector(word);
+            if (query != null) {
+                if (projected.nearest(query) != matrix.nearest(query)) {
+                    throw new IllegalStateException("Projected index disagrees with the brute-force search for " + word);
+                }
+                vectors.add(query);
+            }
+        }
+        queries = vectors.toArray(new float[0][]);
+        System.out.println();
+        System.out.println(projected);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        data.delete();
+    }
+
+    @Benchmark
+    public int bruteForce() {
+        next = next + 1 == queries.length ? 0 : next + 1;
+        return matrix.nearest(queries[next]);
+    }
+
+    @Benchmark
+    public int projected() {
+        next = next + 1 == queries.length ? 0 : next + 1;
+        return projected.nearest(queries[next]);
+    }
+}
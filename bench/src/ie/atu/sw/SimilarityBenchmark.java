@@ -0,0 +1,58 @@
+package ie.atu.sw;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the similarity arithmetic: a single cosine similarity of two double vectors, and scoring one
+ * normalized query against a matrix of 1000 candidates.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "--add-modules", "jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class SimilarityBenchmark {
+    private static final int CANDIDATES = 1000;
+
+    @Param({"300"})
+    public int dimension;
+
+    private final SimilarityCalculator similarityCalculator = new SimilarityCalculator();
+    private double[] vectorA;
+    private double[] vectorB;
+    private float[] query;
+    private float[] matrix;
+    private float[] scores;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(1);
+        vectorA = new double[dimension];
+        vectorB = new double[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vectorA[i] = random.nextGaussian();
+            vectorB[i] = random.nextGaussian();
+        }
+        query = similarityCalculator.normalize(vectorA);
+        matrix = new float[CANDIDATES * dimension];
+        for (int i = 0; i < matrix.length; i++) {
+            matrix[i] = (float) random.nextGaussian();
+        }
+        scores = new float[CANDIDATES];
+    }
+
+    @Benchmark
+    public double calculate() {
+        return similarityCalculator.calculate(vectorA, vectorB);
+    }
+
+    @Benchmark
+    public float[] scoreAll() {
+        similarityCalculator.scoreAll(query, matrix, CANDIDATES, scores);
+        return scores;
+    }
+}
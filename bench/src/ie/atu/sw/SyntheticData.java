@@ -0,0 +1,210 @@
+package ie.atu.sw;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * The SyntheticData class generates the benchmark inputs locally: an embeddings file holding the words of
+ * google-1000.txt plus random rare words, all with random vectors, and a text corpus drawn from that
+ * vocabulary with a Zipf-like skew, capitalization and punctuation. Generation is seeded, so every run
+ * benchmarks the same data.
+ */
+public final class SyntheticData {
+    public static final String GOOGLE_1000_FILE = "google-1000.txt";
+    private static final long SEED = 20240101L;
+
+    private final Path directory;
+    private final Path embeddingsFile;
+    private final Path corpusFile;
+    private final List<String> vocabulary;
+    private final List<String> rareWords;
+
+    private SyntheticData(Path directory, List<String> vocabulary, List<String> rareWords) {
+        this.directory = directory;
+        this.embeddingsFile = directory.resolve("embeddings.txt");
+        this.corpusFile = directory.resolve("corpus.txt");
+        this.vocabulary = vocabulary;
+        this.rareWords = rareWords;
+    }
+
+    /**
+     * Generates an embeddings file and a corpus into a new temporary directory.
+     *
+     * @param extraWords the number of random rare words added to the Google 1000 words
+     * @param dimension  the vector dimension
+     * @param lines      the number of lines in the corpus
+     * @return the generated data
+     * @throws IOException if the files cannot be written
+     */
+    public static SyntheticData generate(int extraWords, int dimension, int lines) throws IOException {
+        return generate(extraWords, dimension, lines, 0);
+    }
+
+    /**
+     * Generates an embeddings file and a corpus into a new temporary directory, with the spread of each vector
+     * component falling off as (i + 1)^-decay, so that most of the vectors' energy lies in a few directions as
+     * in trained embeddings. A decay of 0 gives the same isotropic vectors as the overload without it.
+     *
+     * @param extraWords the number of random rare words added to the Google 1000 words
+     * @param dimension  the vector dimension
+     * @param lines      the number of lines in the corpus
+     * @param decay      the exponent of the fall-off of the component spreads
+     * @return the generated data
+     * @throws IOException if the files cannot be written
+     */
+    public static SyntheticData generate(int extraWords, int dimension, int lines, double decay) throws IOException {
+        Random random = new Random(SEED);
+        List<String> google1000 = new ArrayList<>();
+        for (String word : Files.readAllLines(Path.of(GOOGLE_1000_FILE))) {
+            if (!word.isBlank()) {
+                google1000.add(word.trim().toLowerCase());
+            }
+        }
+
+        List<String> rareWords = new ArrayList<>(extraWords);
+        for (int i = 0; i < extraWords; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int j = 0, length = 5 + random.nextInt(8); j < length; j++) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            rareWords.add(word.toString());
+        }
+
+        List<String> vocabulary = new ArrayList<>(google1000);
+        vocabulary.addAll(rareWords);
+        SyntheticData data = new SyntheticData(Files.createTempDirectory("simplifier-bench"), vocabulary, rareWords);
+        data.writeEmbeddings(random, dimension, decay);
+        data.writeCorpus(random, lines);
+        return data;
+    }
+
+    private void writeEmbeddings(Random random, int dimension, double decay) throws IOException {
+        double[] spreads = new double[dimension];
+        for (int i = 0; i < dimension; i++) {
+            spreads[i] = 0.4 * Math.pow(i + 1, -decay);
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(embeddingsFile)) {
+            for (String word : vocabulary) {
+                writer.write(word);
+                for (int i = 0; i < dimension; i++) {
+                    writer.write(',');
+                    writeDecimal(writer, random.nextGaussian() * spreads[i]);
+                }
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Writes a value with five decimal places, as in the GloVe files, without the cost of String.format.
+     */
+    private static void writeDecimal(BufferedWriter writer, double value) throws IOException {
+        long scaled = Math.round(Math.abs(value) * 100_000);
+        if (value < 0 && scaled != 0) {
+            writer.write('-');
+        }
+        writer.write(Long.toString(scaled / 100_000));
+        writer.write('.');
+        String fraction = Long.toString(scaled % 100_000);
+        for (int i = fraction.length(); i < 5; i++) {
+            writer.write('0');
+        }
+        writer.write(fraction);
+    }
+
+    private void writeCorpus(Random random, int lines) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(corpusFile)) {
+            for (int line = 0; line < lines; line++) {
+                for (int i = 0, words = 8 + random.nextInt(10); i < words; i++) {
+                    if (i > 0) {
+                        writer.write(' ');
+                    }
+                    // Skewed towards the start of the vocabulary, where the common words are
+                    double u = random.nextDouble();
+                    String word = vocabulary.get((int) (u * u * u * vocabulary.size()));
+                    if (random.nextInt(10) == 0) {
+                        word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+                    }
+                    writer.write(word);
+                    if (random.nextInt(8) == 0) {
+                        writer.write(random.nextBoolean() ? ',' : '.');
+                    }
+                }
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Loads the Google 1000 words and the generated embeddings and initializes a MapGoogle1000 over them.
+     *
+     * @return the initialized model
+     * @throws Throwable if the files cannot be loaded
+     */
+    public MapGoogle1000 loadModel() throws Throwable {
+        GoogleWordsLoader googleWordsLoader = new GoogleWordsLoader();
+        googleWordsLoader.processFile(GOOGLE_1000_FILE, null);
+        ConcurrentSkipListSet<String> google1000Set = googleWordsLoader.getGoogle1000Set();
+
+        EmbeddingsStore embeddings = new ParallelEmbeddingsLoader().load(embeddingsFile.toString());
+        MapGoogle1000 mapGoogle1000 = new MapGoogle1000(google1000Set, embeddings);
+        mapGoogle1000.initializeGoogle1000Embeddings();
+        return mapGoogle1000;
+    }
+
+    /**
+     * Returns the temporary directory holding the generated files.
+     *
+     * @return the temporary directory holding the generated files
+     */
+    public Path directory() {
+        return directory;
+    }
+
+    /**
+     * Returns the path to the generated embeddings file.
+     *
+     * @return the path to the generated embeddings file
+     */
+    public Path embeddingsFile() {
+        return embeddingsFile;
+    }
+
+    /**
+     * Returns the path to the generated corpus.
+     *
+     * @return the path to the generated corpus
+     */
+    public Path corpusFile() {
+        return corpusFile;
+    }
+
+    /**
+     * Returns the random words that are not Google 1000 words.
+     *
+     * @return the random words that are not Google 1000 words
+     */
+    public List<String> rareWords() {
+        return rareWords;
+    }
+
+    /**
+     * Deletes the generated files.
+     *
+     * @throws IOException if a file cannot be deleted
+     */
+    public void delete() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+}
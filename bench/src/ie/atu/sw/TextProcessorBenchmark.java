@@ -0,0 +1,70 @@
+package ie.atu.sw;
+
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures simplifying text: a single line with processLine, and a full processFile run over the synthetic
+ * corpus in both the in-memory and the streaming mode.
+ */
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "--add-modules", "jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class TextProcessorBenchmark {
+    @Param({"20000"})
+    public int extraWords;
+
+    @Param({"300"})
+    public int dimension;
+
+    @Param({"20000"})
+    public int lines;
+
+    private SyntheticData data;
+    private TextProcessor textProcessor;
+    private String[] corpus;
+    private String outputFile;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        data = SyntheticData.generate(extraWords, dimension, lines);
+        textProcessor = new TextProcessor(data.loadModel());
+        List<String> corpusLines = Files.readAllLines(data.corpusFile());
+        corpus = corpusLines.toArray(new String[0]);
+        outputFile = data.directory().resolve("output.txt").toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        data.delete();
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String processLine() {
+        next = next + 1 == corpus.length ? 0 : next + 1;
+        return textProcessor.processLine(corpus[next]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void processFile() throws Throwable {
+        textProcessor.setStreaming(false);
+        textProcessor.processFile(data.corpusFile().toString(), outputFile);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void processFileStreaming() throws Throwable {
+        textProcessor.setStreaming(true);
+        textProcessor.processFile(data.corpusFile().toString(), outputFile);
+    }
+}
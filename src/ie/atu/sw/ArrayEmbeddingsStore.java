@@ -0,0 +1,83 @@
+package ie.atu.sw;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * The ArrayEmbeddingsStore class holds a vocabulary as a word array, a WordTable over its rows and one
+ * contiguous row-major float array of vectors. It is built in one go by ParallelEmbeddingsLoader, so neither
+ * the index nor the vector block ever needs to be resized.
+ */
+public class ArrayEmbeddingsStore implements EmbeddingsStore {
+    private final String[] words;
+    private final WordTable index;
+    private final float[] vectors;
+    private final int dimension;
+
+    /**
+     * Constructs a store over already parsed words and vectors.
+     *
+     * <p><b>Time Complexity:</b> O(n), where n is the number of words, which are indexed.</p>
+     *
+     * @param words     the words, in row order
+     * @param vectors   the row-major vectors, one row of dimension values per word
+     * @param dimension the vector dimension
+     */
+    public ArrayEmbeddingsStore(String[] words, float[] vectors, int dimension) {
+        if ((long) words.length * dimension != vectors.length) {
+            throw new IllegalArgumentException("Expected " + words.length + " rows of " + dimension + " values");
+        }
+        this.words = words;
+        this.vectors = vectors;
+        this.dimension = dimension;
+        this.index = WordTable.ofRows(words);
+    }
+
+    /**
+     * Retrieves the embedding vector for a word, widened to double precision.
+     *
+     * <p><b>Time Complexity:</b> O(d), where d is the vector dimension.</p>
+     *
+     * @param word the word to look up
+     * @return a new array holding the embedding vector, or null if the word is not in the vocabulary
+     */
+    @Override
+    public double[] get(String word) {
+        int row = index.id(word);
+        if (row < 0) {
+            return null;
+        }
+        double[] vector = new double[dimension];
+        int base = row * dimension;
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = vectors[base + i];
+        }
+        return vector;
+    }
+
+    @Override
+    public boolean contains(String word) {
+        return index.id(word) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return words.length;
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    @Override
+    public Collection<String> words() {
+        return Collections.unmodifiableList(Arrays.asList(words));
+    }
+
+    @Override
+    public WordTable wordTable() {
+        return index;
+    }
+}
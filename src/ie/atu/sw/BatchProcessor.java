@@ -0,0 +1,240 @@
+package ie.atu.sw;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * The BatchProcessor class simplifies many text files with one shared TextProcessor, and so one loaded
+ * MapGoogle1000. Each file is processed in its own subtask, at most {@code workers} files at a time, and the
+ * lines of each file are forked in chunks by the TextProcessor as usual, so the carrier threads are shared
+ * between the lines of every file in progress.
+ *
+ * <p>The inputs are given as a directory (every regular file in it, recursively), a glob such as
+ * {@code texts/*.txt}, or a manifest file prefixed with {@code @} listing one input path per line. Outputs are
+ * written to the target directory under the same path relative to the directory or glob base, or under the
+ * file name for a manifest. Files under the output directory are not scanned as inputs when it lies inside the
+ * input directory. Two inputs that would be written to the same output, such as manifest entries with the same
+ * file name, and an output that would overwrite an input, are rejected before any file is processed.</p>
+ */
+public class BatchProcessor {
+    /**
+     * An input file and the output file it is written to.
+     *
+     * @param input  the input text file
+     * @param output the output file
+     */
+    public record Job(Path input, Path output) {
+    }
+
+    /**
+     * The outcome of one job.
+     *
+     * @param job     the job
+     * @param bytes   the size of the input file
+     * @param nanos   the time taken to process the file
+     * @param failure the error that stopped the file, or null if it succeeded
+     */
+    public record Result(Job job, long bytes, long nanos, Throwable failure) {
+        @Override
+        public String toString() {
+            return failure == null
+                    ? String.format("%s: %.1f ms, %.2f MB/s", job.input(), nanos / 1e6, bytes / 1e6 / Math.max(1e-9, nanos / 1e9))
+                    : job.input() + ": failed, " + failure;
+        }
+    }
+
+    private final TextProcessor textProcessor;
+    private final int workers;
+
+    /**
+     * Constructs a batch processor over a shared text processor.
+     *
+     * @param textProcessor the text processor over the loaded model
+     * @param workers       the maximum number of files processed at once
+     */
+    public BatchProcessor(TextProcessor textProcessor, int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Workers must be at least 1");
+        }
+        this.textProcessor = textProcessor;
+        this.workers = workers;
+    }
+
+    /**
+     * Lists the jobs for an input specification.
+     *
+     * <p><b>Time Complexity:</b> O(f), where f is the number of files listed or scanned.</p>
+     *
+     * @param inputs    a directory, a glob, or {@code @} followed by the path of a manifest file
+     * @param outputDir the directory the outputs are written to
+     * @return the jobs, in a stable order
+     * @throws IOException if the directory or manifest cannot be read, nothing matches, two inputs would be
+     *                     written to the same output, or an output would overwrite an input
+     */
+    public static List<Job> jobs(String inputs, Path outputDir) throws IOException {
+        List<Job> jobs = new ArrayList<>();
+        if (inputs.startsWith("@")) {
+            for (String line : Files.readAllLines(Path.of(inputs.substring(1)))) {
+                if (!line.isBlank()) {
+                    Path input = Path.of(line.strip());
+                    jobs.add(new Job(input, outputDir.resolve(input.getFileName())));
+                }
+            }
+        } else if (Files.isDirectory(Path.of(inputs))) {
+            Path base = Path.of(inputs);
+            jobs.addAll(scan(base, base, path -> !isUnder(path, base, outputDir), outputDir));
+        } else {
+            Path pattern = Path.of(inputs);
+            Path base = globBase(pattern);
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + base.relativize(pattern));
+            jobs.addAll(scan(base, base, path -> matcher.matches(base.relativize(path)) && !isUnder(path, base, outputDir),
+                    outputDir));
+        }
+        if (jobs.isEmpty()) {
+            throw new IOException("No input files found for: " + inputs);
+        }
+        Map<Path, Path> targets = new HashMap<>();
+        for (Job job : jobs) {
+            Path output = resolve(job.output());
+            if (output.equals(resolve(job.input()))) {
+                throw new IOException("The output of " + job.input() + " would overwrite it: " + job.output());
+            }
+            Path previous = targets.putIfAbsent(output, job.input());
+            if (previous != null) {
+                throw new IOException("Both " + previous + " and " + job.input() + " would be written to " + job.output());
+            }
+        }
+        for (Job job : jobs) {
+            Path writer = targets.get(resolve(job.input()));
+            if (writer != null) {
+                throw new IOException("The output of " + writer + " would overwrite the input " + job.input());
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Returns the path a file is reached by once links are followed, or its absolute normalized form if it
+     * does not exist yet, so two names for one file compare equal.
+     */
+    private static Path resolve(Path path) throws IOException {
+        Path absolute = path.toAbsolutePath().normalize();
+        return Files.exists(absolute) ? absolute.toRealPath() : absolute;
+    }
+
+    /**
+     * Checks whether a scanned file lies under an output directory that is nested inside, but is not, the
+     * scanned directory, so earlier outputs are not taken as inputs. An output directory that is the scanned
+     * directory itself is left to the overwrite check instead.
+     */
+    private static boolean isUnder(Path path, Path base, Path outputDir) {
+        Path output = outputDir.toAbsolutePath().normalize();
+        return !output.equals(base.toAbsolutePath().normalize()) && path.toAbsolutePath().normalize().startsWith(output);
+    }
+
+    private static List<Job> scan(Path directory, Path base, Predicate<Path> filter, Path outputDir) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(filter)
+                    .sorted()
+                    .map(path -> new Job(path, outputDir.resolve(base.relativize(path).toString())))
+                    .toList();
+        }
+    }
+
+    /**
+     * Returns the longest leading part of a glob that contains no glob characters.
+     */
+    private static Path globBase(Path pattern) {
+        Path base = pattern.isAbsolute() ? pattern.getRoot() : Path.of("");
+        for (Path part : pattern) {
+            if (part.toString().matches(".*[*?\\[{].*")) {
+                break;
+            }
+            base = base.resolve(part);
+        }
+        return base;
+    }
+
+    /**
+     * Processes every job, at most {@code workers} at a time. A failed file is reported in its result and
+     * does not stop the others.
+     *
+     * <p><b>Time Complexity:</b> O(t / p), where t is the total number of words in the files and p is the
+     * number of carrier threads.</p>
+     *
+     * @param jobs the jobs to run
+     * @return the result of each job, in the order of the jobs
+     * @throws InterruptedException if interrupted while waiting for the jobs
+     */
+    public List<Result> process(List<Job> jobs) throws InterruptedException {
+        Result[] results = new Result[jobs.size()];
+        Semaphore permits = new Semaphore(workers);
+
+        try (var scope = StructuredTaskScope.open()) {
+            for (int i = 0; i < jobs.size(); i++) {
+                Job job = jobs.get(i);
+                int index = i;
+                permits.acquire();
+                scope.fork(() -> {
+                    try {
+                        results[index] = run(job);
+                    } finally {
+                        permits.release();
+                    }
+                    return null;
+                });
+            }
+            scope.join();
+        }
+        return List.of(results);
+    }
+
+    private Result run(Job job) {
+        long start = System.nanoTime();
+        try {
+            long bytes = Files.size(job.input());
+            Path parent = job.output().toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            textProcessor.processFile(job.input().toString(), job.output().toString());
+            return new Result(job, bytes, System.nanoTime() - start, null);
+        } catch (Throwable e) {
+            return new Result(job, 0, System.nanoTime() - start, e);
+        }
+    }
+
+    /**
+     * Summarises a batch: the number of files, failures, bytes, elapsed time and throughput.
+     *
+     * @param results    the results of the batch
+     * @param totalNanos the wall-clock time of the whole batch
+     * @return a one-line summary
+     */
+    public static String summary(List<Result> results, long totalNanos) {
+        long bytes = 0;
+        int failed = 0;
+        for (Result result : results) {
+            bytes += result.bytes();
+            if (result.failure() != null) {
+                failed++;
+            }
+        }
+        double seconds = Math.max(1e-9, totalNanos / 1e9);
+        return String.format("Simplified %d of %d files, %.1f MB in %.2f s: %.2f MB/s, %.1f files/s",
+                results.size() - failed, results.size(), bytes / 1e6, seconds, bytes / 1e6 / seconds,
+                (results.size() - failed) / seconds);
+    }
+}
@@ -0,0 +1,103 @@
+package ie.atu.sw;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The BinaryEmbeddingsConverter class converts GloVe embeddings into the compact binary format
+ * read by BinaryEmbeddingsStore, so later runs can memory-map the vectors instead of parsing the CSV file.
+ */
+public class BinaryEmbeddingsConverter {
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Loads a GloVe CSV embeddings file and writes it out in the binary format.
+     *
+     * <p><b>Time Complexity:</b> O(n * d), where n is the number of words and d is the vector dimension.</p>
+     *
+     * @param csvFile    the path to the GloVe CSV embeddings file
+     * @param binaryFile the path to the binary file to write
+     * @throws Throwable if an error occurs while loading or writing the embeddings
+     */
+    public void convert(String csvFile, String binaryFile) throws Throwable {
+        GloVEEmbeddingsLoader loader = new GloVEEmbeddingsLoader();
+        loader.processFile(csvFile, null);
+        write(loader, binaryFile);
+    }
+
+    /**
+     * Writes the embeddings of a store to a file in the binary format.
+     *
+     * <p><b>Time Complexity:</b> O(n * d), where n is the number of words and d is the vector dimension.</p>
+     *
+     * @param store      the embeddings to write
+     * @param binaryFile the path to the binary file to write
+     * @throws IOException if an I/O error occurs while writing the file
+     */
+    public void write(EmbeddingsStore store, String binaryFile) throws IOException {
+        System.out.println("Writing binary embeddings to file: " + binaryFile);
+        List<String> words = new ArrayList<>(store.words());
+        int dimension = store.dimension();
+
+        List<byte[]> encoded = new ArrayList<>(words.size());
+        long indexBytes = 0;
+        for (String word : words) {
+            byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xFFFF) {
+                throw new IOException("Word is too long for the binary format: " + word);
+            }
+            encoded.add(bytes);
+            indexBytes += Short.BYTES + bytes.length;
+        }
+        long floatOffset = BinaryEmbeddingsStore.floatBlockOffset(indexBytes);
+
+        try (FileChannel channel = FileChannel.open(Path.of(binaryFile), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            BinaryEmbeddingsStore.writeHeader(buffer, words, dimension, floatOffset);
+
+            for (byte[] bytes : encoded) {
+                ensureRemaining(channel, buffer, Short.BYTES + bytes.length);
+                buffer.putShort((short) bytes.length).put(bytes);
+            }
+            long written = BinaryEmbeddingsStore.HEADER_SIZE + indexBytes;
+            while (written++ < floatOffset) {
+                ensureRemaining(channel, buffer, 1);
+                buffer.put((byte) 0);
+            }
+
+            for (String word : words) {
+                double[] vector = store.get(word);
+                if (vector.length != dimension) {
+                    throw new IOException("Inconsistent vector dimension for word: " + word);
+                }
+                for (double value : vector) {
+                    ensureRemaining(channel, buffer, Float.BYTES);
+                    buffer.putFloat((float) value);
+                }
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    private static void ensureRemaining(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
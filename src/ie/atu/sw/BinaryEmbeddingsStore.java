@@ -0,0 +1,247 @@
+package ie.atu.sw;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The BinaryEmbeddingsStore class reads embeddings written by BinaryEmbeddingsConverter by memory-mapping
+ * the file into a MemorySegment, which unlike a MappedByteBuffer may be larger than 2 GB. Only the word index
+ * is read onto the heap; the vectors stay in the mapped float block and a query's row is copied from it
+ * straight into the unit vector that is scored, without an intermediate double array.
+ *
+ * <p>The file layout is a little-endian header of magic number, version, vocabulary size, dimension and the
+ * offset of the float block, followed by the word index (an unsigned short length and the UTF-8 bytes of each
+ * word) and then the float block with one row of {@code dimension} values per word, in index order.</p>
+ *
+ * <p>The mapping belongs to an automatic Arena, so the file is unmapped once the store is unreachable.</p>
+ */
+public class BinaryEmbeddingsStore implements EmbeddingsStore {
+    static final int MAGIC = 0x474C5642; // "GLVB"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 24;
+    static final int BLOCK_ALIGNMENT = 64;
+
+    static final ValueLayout.OfFloat FLOAT = ValueLayout.JAVA_FLOAT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    static final ValueLayout.OfShort SHORT = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * The contents of a mapped binary embeddings file.
+     *
+     * @param words     the words in row order
+     * @param dimension the vector dimension
+     * @param vectors   the float block, one row per word
+     */
+    record Contents(String[] words, int dimension, MemorySegment vectors) {
+    }
+
+    private final String[] words;
+    private final WordTable index;
+    private final MemorySegment vectors;
+    private final int dimension;
+
+    private BinaryEmbeddingsStore(String[] words, WordTable index, MemorySegment vectors, int dimension) {
+        this.words = words;
+        this.index = index;
+        this.vectors = vectors;
+        this.dimension = dimension;
+    }
+
+    /**
+     * Opens a binary embeddings file by memory-mapping it.
+     *
+     * <p><b>Time Complexity:</b> O(n), where n is the number of words in the file; the vectors themselves
+     * are not read until they are used.</p>
+     *
+     * @param filePath the path to the binary embeddings file
+     * @return the store backed by the mapped file
+     * @throws IOException if the file cannot be read or is not a binary embeddings file
+     */
+    public static BinaryEmbeddingsStore open(String filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            MemorySegment file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), Arena.ofAuto());
+            Contents contents = read(file, filePath);
+            String[] words = contents.words();
+            return new BinaryEmbeddingsStore(words, WordTable.ofRows(words), contents.vectors(), contents.dimension());
+        }
+    }
+
+    /**
+     * Reads the header and word index of a mapped binary embeddings file and slices out its float block.
+     *
+     * <p><b>Time Complexity:</b> O(n), where n is the number of words in the file.</p>
+     *
+     * @param file     the mapped file
+     * @param filePath the path to the file, for error messages
+     * @return the words, dimension and float block of the file
+     * @throws IOException if the file is not a binary embeddings file or is truncated
+     */
+    static Contents read(MemorySegment file, String filePath) throws IOException {
+        if (file.byteSize() < HEADER_SIZE || file.get(INT, 0) != MAGIC) {
+            throw new IOException("Not a binary embeddings file: " + filePath);
+        }
+        int version = file.get(INT, 4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary embeddings version " + version + ": " + filePath);
+        }
+        int size = file.get(INT, 8);
+        int dimension = file.get(INT, 12);
+        long floatOffset = file.get(LONG, 16);
+        if (size < 0 || dimension < 1) {
+            throw new IOException("Not a binary embeddings file: " + filePath);
+        }
+        // The header must fit the file before anything is allocated from it: the float block ends the file,
+        // and every word before it takes at least its length prefix
+        if (floatOffset < HEADER_SIZE || floatOffset > file.byteSize()
+                || (file.byteSize() - floatOffset) / Float.BYTES != (long) size * dimension
+                || (file.byteSize() - floatOffset) % Float.BYTES != 0
+                || size > (floatOffset - HEADER_SIZE) / Short.BYTES) {
+            throw new IOException("Binary embeddings file is truncated or corrupt: " + filePath);
+        }
+
+        String[] words = new String[size];
+        long position = HEADER_SIZE;
+        for (int i = 0; i < size; i++) {
+            if (position + Short.BYTES > floatOffset) {
+                throw new IOException("Binary embeddings file is truncated: " + filePath);
+            }
+            int length = Short.toUnsignedInt(file.get(SHORT, position));
+            if (position + Short.BYTES + length > floatOffset) {
+                throw new IOException("Binary embeddings file is truncated: " + filePath);
+            }
+            byte[] bytes = file.asSlice(position + Short.BYTES, length).toArray(ValueLayout.JAVA_BYTE);
+            words[i] = new String(bytes, StandardCharsets.UTF_8);
+            position += Short.BYTES + length;
+        }
+
+        long vectorBytes = (long) size * dimension * Float.BYTES;
+        return new Contents(words, dimension, file.asSlice(floatOffset, vectorBytes));
+    }
+
+    /**
+     * Retrieves the embedding vector for a word, copied out of the mapped float block and widened to double
+     * precision. The similarity search reads rows through unitVector instead.
+     *
+     * <p><b>Time Complexity:</b> O(d), where d is the vector dimension.</p>
+     *
+     * @param word the word to look up
+     * @return a new array holding the embedding vector, or null if the word is not in the vocabulary
+     */
+    @Override
+    public double[] get(String word) {
+        int id = index.id(word);
+        if (id < 0) {
+            return null;
+        }
+        double[] vector = new double[dimension];
+        long base = (long) id * dimension;
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = vectors.getAtIndex(FLOAT, base + i);
+        }
+        return vector;
+    }
+
+    /**
+     * Copies the row of a word out of the mapped float block straight into a new float vector and scales it
+     * to unit length, without the intermediate double array of get.
+     *
+     * <p><b>Time Complexity:</b> O(d), where d is the vector dimension.</p>
+     *
+     * @param word the word to look up
+     * @return a new unit-length vector, or null if the word is not in the vocabulary or has a zero vector
+     */
+    @Override
+    public float[] unitVector(String word) {
+        int id = index.id(word);
+        return id < 0 ? null : unitVector(vectors, id, dimension);
+    }
+
+    /**
+     * Copies one row of a little-endian float block into a new vector and scales it to unit length.
+     *
+     * <p><b>Time Complexity:</b> O(d), where d is the vector dimension.</p>
+     *
+     * @param vectors   the float block
+     * @param row       the row to read
+     * @param dimension the vector dimension
+     * @return a new unit-length vector, or null if the row is a zero vector
+     */
+    static float[] unitVector(MemorySegment vectors, long row, int dimension) {
+        float[] vector = new float[dimension];
+        MemorySegment.copy(vectors, FLOAT, row * dimension * Float.BYTES, vector, 0, dimension);
+        double norm = 0;
+        for (float value : vector) {
+            norm += (double) value * value;
+        }
+        if (norm == 0 || Double.isNaN(norm)) {
+            return null;
+        }
+        double scale = 1.0 / Math.sqrt(norm);
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) (vector[i] * scale);
+        }
+        return vector;
+    }
+
+    @Override
+    public boolean contains(String word) {
+        return index.id(word) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return words.length;
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    @Override
+    public Collection<String> words() {
+        return Collections.unmodifiableList(Arrays.asList(words));
+    }
+
+    @Override
+    public WordTable wordTable() {
+        return index;
+    }
+
+    /**
+     * Computes the offset of the float block for a word index of the given length, rounded up
+     * so the block starts on an aligned boundary.
+     *
+     * @param indexBytes the number of bytes taken by the word index
+     * @return the offset of the float block from the start of the file
+     */
+    static long floatBlockOffset(long indexBytes) {
+        long end = HEADER_SIZE + indexBytes;
+        return (end + BLOCK_ALIGNMENT - 1) / BLOCK_ALIGNMENT * BLOCK_ALIGNMENT;
+    }
+
+    /**
+     * Writes the file header into the given buffer.
+     *
+     * @param buffer      the little-endian buffer to write into
+     * @param words       the words in index order
+     * @param dimension   the vector dimension
+     * @param floatOffset the offset of the float block
+     */
+    static void writeHeader(ByteBuffer buffer, List<String> words, int dimension, long floatOffset) {
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(words.size()).putInt(dimension).putLong(floatOffset);
+    }
+}
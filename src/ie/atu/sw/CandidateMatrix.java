@@ -0,0 +1,221 @@
+package ie.atu.sw;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The CandidateMatrix class holds the embeddings of the replacement candidates (the Google 1000 words) as a
+ * single row-major float matrix of unit-length vectors, with a parallel array mapping each row to its word.
+ * Because every row is normalized up front, the cosine similarity against a normalized query is a single
+ * dot product, and a nearest-neighbour search is one sequential pass over contiguous memory.
+ *
+ * <p>As a NearestNeighbourIndex it is the exact brute-force search; approximate indexes are built on top of it.</p>
+ */
+public class CandidateMatrix implements NearestNeighbourIndex {
+    private static final int TILE_BYTES = 32 * 1024;
+    private static final int QUERY_BLOCK = 64;
+
+    private final String[] words;
+    private final float[] vectors;
+    private final int dimension;
+    private final SimilarityCalculator similarityCalculator = new SimilarityCalculator();
+
+    private CandidateMatrix(String[] words, float[] vectors, int dimension) {
+        this.words = words;
+        this.vectors = vectors;
+        this.dimension = dimension;
+    }
+
+    /**
+     * Returns a matrix with no rows, for use before the candidates have been initialized.
+     *
+     * @return an empty matrix
+     */
+    public static CandidateMatrix empty() {
+        return new CandidateMatrix(new String[0], new float[0], 0);
+    }
+
+    /**
+     * Wraps rows that were built earlier, such as those restored from a ModelSnapshot.
+     *
+     * @param words     the word of each row
+     * @param vectors   the unit-length rows, row-major
+     * @param dimension the length of each row
+     * @return the matrix over the given arrays
+     */
+    static CandidateMatrix of(String[] words, float[] vectors, int dimension) {
+        if (vectors.length != words.length * dimension) {
+            throw new IllegalArgumentException("Expected " + words.length * dimension + " values, got " + vectors.length);
+        }
+        return new CandidateMatrix(words, vectors, dimension);
+    }
+
+    /**
+     * Builds the matrix from the candidates that have an embedding. Candidates without an embedding,
+     * or whose embedding has zero length, are left out.
+     *
+     * <p><b>Time Complexity:</b> O(n * d), where n is the number of candidates and d is the vector dimension.</p>
+     *
+     * @param candidates the candidate words, in the order their rows should appear
+     * @param store      the embeddings to read the candidate vectors from
+     * @return the matrix of normalized candidate vectors
+     */
+    public static CandidateMatrix build(Collection<String> candidates, EmbeddingsStore store) {
+        List<String> words = new ArrayList<>(candidates.size());
+        List<float[]> rows = new ArrayList<>(candidates.size());
+        for (String word : candidates) {
+            float[] unit = store.unitVector(word);
+            if (unit != null) {
+                words.add(word);
+                rows.add(unit);
+            }
+        }
+
+        int dimension = rows.isEmpty() ? 0 : rows.get(0).length;
+        float[] vectors = new float[rows.size() * dimension];
+        for (int i = 0; i < rows.size(); i++) {
+            System.arraycopy(rows.get(i), 0, vectors, i * dimension, dimension);
+        }
+        return new CandidateMatrix(words.toArray(new String[0]), vectors, dimension);
+    }
+
+    /**
+     * Finds the row most similar to a normalized query vector.
+     *
+     * <p><b>Time Complexity:</b> O(n * d), where n is the number of rows and d is the vector dimension.</p>
+     *
+     * @param query the unit-length query vector
+     * @return the index of the most similar row, or -1 if there is no row with a similarity above -1
+     */
+    @Override
+    public int nearest(float[] query) {
+        if (query.length != dimension) {
+            return -1;
+        }
+
+        // The running best is kept as the rows are scored, as nearestAll does per tile, so a search allocates nothing
+        int best = -1;
+        float highestSimilarity = -1.0f;
+        for (int row = 0; row < words.length; row++) {
+            float similarity = similarityCalculator.dot(query, vectors, row * dimension);
+            if (similarity > highestSimilarity) {
+                highestSimilarity = similarity;
+                best = row;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Finds the most similar row for a batch of normalized query vectors, in the manner of a blocked matrix
+     * multiplication: the rows are walked in tiles small enough to stay in the L1 cache, and each tile is
+     * scored against a block of queries before moving on, so every row is read from memory once per block of
+     * queries instead of once per query. Rows are still compared in order for each query, so the result is
+     * the same as calling nearest on each query.
+     *
+     * <p><b>Time Complexity:</b> O(q * n * d), where q is the number of queries, n is the number of rows and
+     * d is the vector dimension.</p>
+     *
+     * @param queries the unit-length query vectors
+     * @return the index of the most similar row for each query, or -1 where there is none
+     */
+    @Override
+    public int[] nearestAll(List<float[]> queries) {
+        int[] best = new int[queries.size()];
+        float[] highestSimilarity = new float[queries.size()];
+        Arrays.fill(best, -1);
+        Arrays.fill(highestSimilarity, -1.0f);
+        int tileRows = Math.max(1, TILE_BYTES / (Math.max(1, dimension) * Float.BYTES));
+
+        for (int blockStart = 0; blockStart < best.length; blockStart += QUERY_BLOCK) {
+            int blockEnd = Math.min(best.length, blockStart + QUERY_BLOCK);
+            for (int tileStart = 0; tileStart < words.length; tileStart += tileRows) {
+                int tileEnd = Math.min(words.length, tileStart + tileRows);
+                for (int q = blockStart; q < blockEnd; q++) {
+                    float[] query = queries.get(q);
+                    if (query.length != dimension) {
+                        continue;
+                    }
+                    for (int row = tileStart; row < tileEnd; row++) {
+                        float similarity = similarityCalculator.dot(query, vectors, row * dimension);
+                        if (similarity > highestSimilarity[q]) {
+                            highestSimilarity[q] = similarity;
+                            best[q] = row;
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the word of a row.
+     *
+     * @param row the row index
+     * @return the candidate word of that row
+     */
+    @Override
+    public String word(int row) {
+        return words[row];
+    }
+
+    /**
+     * Returns the number of rows in the matrix.
+     *
+     * @return the number of candidates with an embedding
+     */
+    @Override
+    public int size() {
+        return words.length;
+    }
+
+    /**
+     * Returns the length of each row.
+     *
+     * @return the vector dimension
+     */
+    public int dimension() {
+        return dimension;
+    }
+
+    /**
+     * Returns a copy of a row.
+     *
+     * @param row the row index
+     * @return a new array holding the unit-length vector of that row
+     */
+    float[] row(int row) {
+        float[] vector = new float[dimension];
+        System.arraycopy(vectors, row * dimension, vector, 0, dimension);
+        return vector;
+    }
+
+    /**
+     * Calculates the similarity of a normalized query vector with one row.
+     *
+     * <p><b>Time Complexity:</b> O(d), where d is the vector dimension.</p>
+     *
+     * @param query the unit-length query vector
+     * @param row   the row index
+     * @return the cosine similarity of the query and the row
+     */
+    float score(float[] query, int row) {
+        return similarityCalculator.dot(query, vectors, row * dimension);
+    }
+
+    /**
+     * Calculates the similarity of two rows.
+     *
+     * <p><b>Time Complexity:</b> O(d), where d is the vector dimension.</p>
+     *
+     * @param rowA the first row index
+     * @param rowB the second row index
+     * @return the cosine similarity of the two rows
+     */
+    float score(int rowA, int rowB) {
+        return similarityCalculator.dot(vectors, rowA * dimension, vectors, rowB * dimension, dimension);
+    }
+}
@@ -0,0 +1,282 @@
+package ie.atu.sw;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The ChannelLineWriter class writes lines to a FileChannel through large, reusable direct ByteBuffers,
+ * encoding each line as UTF-8 straight into the buffer, so there is no intermediate char buffer or byte array
+ * and the channel writes straight from native memory. Each line is followed by the platform line separator,
+ * as by BufferedWriter.newLine. Unpaired surrogates are written as {@code ?}, as by String.getBytes.
+ *
+ * <p>With write-behind, a full buffer is handed to a background virtual thread that writes it to the channel
+ * while the caller fills the next one, so encoding and disk writes overlap with the work producing the lines.
+ * A fixed pool of buffers bounds the memory held by writes in progress; the caller waits for a free buffer when
+ * the disk falls behind. A write failure on the background thread is thrown by the next call.</p>
+ *
+ * <p>A ChannelLineWriter is not thread-safe; lines are written by one thread at a time.</p>
+ */
+public class ChannelLineWriter implements AutoCloseable {
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+    public static final int WRITE_BEHIND_BUFFERS = 4;
+
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+    private static final ByteBuffer STOP = ByteBuffer.allocate(0);
+
+    private final FileChannel channel;
+    private final int buffers;
+    private final BlockingQueue<ByteBuffer> free;
+    private final BlockingQueue<ByteBuffer> full;
+    private final ExecutorService executor;
+    private final Future<?> writer;
+    private ByteBuffer current;
+    private volatile IOException failure;
+
+    /**
+     * Opens a file for writing, creating it or truncating it.
+     *
+     * @param file        the file to write
+     * @param writeBehind true to write full buffers on a background virtual thread
+     * @return the writer, which closes the file when it is closed
+     * @throws IOException if the file cannot be opened
+     */
+    public static ChannelLineWriter open(Path file, boolean writeBehind) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        return new ChannelLineWriter(channel, DEFAULT_BUFFER_SIZE, writeBehind);
+    }
+
+    /**
+     * Constructs a writer that appends at the channel's current position.
+     *
+     * @param channel     the channel to write to, which is closed when the writer is closed
+     * @param bufferSize  the size of each direct buffer in bytes
+     * @param writeBehind true to write full buffers on a background virtual thread
+     */
+    public ChannelLineWriter(FileChannel channel, int bufferSize, boolean writeBehind) {
+        if (bufferSize < 16) {
+            throw new IllegalArgumentException("Buffer size must be at least 16 bytes");
+        }
+        this.channel = channel;
+        this.buffers = writeBehind ? WRITE_BEHIND_BUFFERS : 1;
+        this.free = new ArrayBlockingQueue<>(buffers);
+        this.full = new ArrayBlockingQueue<>(buffers + 1);
+        for (int i = 0; i < buffers; i++) {
+            free.add(ByteBuffer.allocateDirect(bufferSize));
+        }
+        this.current = free.poll();
+        this.executor = writeBehind ? Executors.newVirtualThreadPerTaskExecutor() : null;
+        this.writer = writeBehind ? executor.submit(this::writeBehind) : null;
+    }
+
+    /**
+     * Writes every full buffer handed over by the caller, then returns it to the free pool.
+     */
+    private void writeBehind() {
+        try {
+            while (true) {
+                ByteBuffer buffer = full.take();
+                if (buffer == STOP) {
+                    return;
+                }
+                try {
+                    if (failure == null) {
+                        drain(buffer);
+                    }
+                } catch (IOException e) {
+                    failure = e;
+                } finally {
+                    buffer.clear();
+                    free.add(buffer);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain(ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Writes a line followed by the line separator.
+     *
+     * <p><b>Time Complexity:</b> O(l), where l is the length of the line.</p>
+     *
+     * @param line the line to write
+     * @throws IOException if an earlier write failed or the channel cannot be written
+     */
+    public void writeLine(String line) throws IOException {
+        int length = line.length();
+        if (current.remaining() >= length * 3 + LINE_SEPARATOR.length) {
+            // At most three bytes per char: a surrogate pair is two chars and four bytes
+            for (int i = 0; i < length; i++) {
+                i = encode(line, i, current);
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                if (current.remaining() < 4) {
+                    swap();
+                }
+                i = encode(line, i, current);
+            }
+            if (current.remaining() < LINE_SEPARATOR.length) {
+                swap();
+            }
+        }
+        current.put(LINE_SEPARATOR);
+    }
+
+    /**
+     * Writes every line of a list, each followed by the line separator.
+     *
+     * <p><b>Time Complexity:</b> O(c), where c is the total length of the lines.</p>
+     *
+     * @param lines the lines to write
+     * @throws IOException if an earlier write failed or the channel cannot be written
+     */
+    public void writeLines(List<String> lines) throws IOException {
+        for (String line : lines) {
+            writeLine(line);
+        }
+    }
+
+    /**
+     * Encodes the char at an index, or the surrogate pair starting there, and returns the index of the last
+     * char consumed.
+     */
+    private static int encode(String line, int i, ByteBuffer out) {
+        char c = line.charAt(i);
+        if (c < 0x80) {
+            out.put((byte) c);
+        } else if (c < 0x800) {
+            out.put((byte) (0xC0 | c >> 6));
+            out.put((byte) (0x80 | c & 0x3F));
+        } else if (!Character.isSurrogate(c)) {
+            out.put((byte) (0xE0 | c >> 12));
+            out.put((byte) (0x80 | c >> 6 & 0x3F));
+            out.put((byte) (0x80 | c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && i + 1 < line.length() && Character.isLowSurrogate(line.charAt(i + 1))) {
+            int codePoint = Character.toCodePoint(c, line.charAt(++i));
+            out.put((byte) (0xF0 | codePoint >> 18));
+            out.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+            out.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+            out.put((byte) (0x80 | codePoint & 0x3F));
+        } else {
+            out.put((byte) '?');
+        }
+        return i;
+    }
+
+    /**
+     * Hands the current buffer to the channel, directly or through the write-behind thread, and takes an
+     * empty one.
+     */
+    private void swap() throws IOException {
+        checkFailure();
+        if (writer == null) {
+            drain(current);
+            current.clear();
+            return;
+        }
+        try {
+            full.put(current);
+            current = free.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a write buffer");
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() throws IOException {
+        IOException e = failure;
+        if (e != null) {
+            throw new IOException("Write-behind failed", e);
+        }
+    }
+
+    /**
+     * Writes everything buffered so far to the channel and waits until the write-behind thread has written
+     * it, so that the channel's position and a following force cover every line written.
+     *
+     * <p><b>Time Complexity:</b> O(b), where b is the number of bytes still buffered.</p>
+     *
+     * @throws IOException if a write failed
+     */
+    public void flush() throws IOException {
+        if (current.position() > 0) {
+            swap();
+        }
+        if (writer != null) {
+            // Every buffer is back in the pool once the background thread has written them all
+            ByteBuffer[] all = new ByteBuffer[buffers];
+            all[0] = current;
+            try {
+                for (int i = 1; i < buffers; i++) {
+                    all[i] = free.take();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while flushing");
+            } finally {
+                for (int i = 1; i < buffers; i++) {
+                    if (all[i] != null) {
+                        free.add(all[i]);
+                    }
+                }
+            }
+        }
+        checkFailure();
+    }
+
+    /**
+     * Returns the channel being written to.
+     *
+     * @return the channel
+     */
+    public FileChannel channel() {
+        return channel;
+    }
+
+    /**
+     * Flushes every buffered line, stops the write-behind thread and closes the channel.
+     *
+     * @throws IOException if a write failed or the channel cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            if (writer != null) {
+                full.add(STOP);
+                try {
+                    writer.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    failure = new IOException(e.getCause());
+                }
+                executor.shutdown();
+            }
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package ie.atu.sw;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+/**
+ * The Checkpoint record is the progress of a checkpointed run, kept in a sidecar file next to the output: how
+ * far through the input the committed output reaches, and how long the committed output is. A restarted run
+ * truncates the output to that length, discarding any partly written segment, and continues reading the
+ * input from that offset.
+ *
+ * <p>A checksum of the input bytes just before the offset guards against resuming over an input file that
+ * has been replaced rather than appended to.</p>
+ *
+ * @param input        the absolute path of the input file
+ * @param inputOffset  the byte offset in the input just past the last committed line
+ * @param lineNumber   the number of input lines committed
+ * @param outputLength the length in bytes of the committed output
+ * @param checksum     the CRC-32 of up to CHECKSUM_BYTES input bytes before inputOffset
+ */
+public record Checkpoint(String input, long inputOffset, long lineNumber, long outputLength, long checksum) {
+    public static final String SUFFIX = ".checkpoint";
+    public static final int CHECKSUM_BYTES = 4096;
+
+    /**
+     * Returns the sidecar file of an output file.
+     *
+     * @param outputFile the output file
+     * @return the path of its checkpoint
+     */
+    public static Path sidecar(Path outputFile) {
+        return outputFile.resolveSibling(outputFile.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Builds the checkpoint for a committed segment, reading the input bytes before the offset for the checksum.
+     *
+     * <p><b>Time Complexity:</b> O(1), at most CHECKSUM_BYTES bytes are read.</p>
+     *
+     * @param input        the input file
+     * @param inputOffset  the byte offset just past the last committed line
+     * @param lineNumber   the number of input lines committed
+     * @param outputLength the length in bytes of the committed output
+     * @return the checkpoint
+     * @throws IOException if the input cannot be read
+     */
+    public static Checkpoint of(Path input, long inputOffset, long lineNumber, long outputLength) throws IOException {
+        return new Checkpoint(input.toAbsolutePath().toString(), inputOffset, lineNumber, outputLength,
+                checksum(input, inputOffset));
+    }
+
+    private static long checksum(Path input, long inputOffset) throws IOException {
+        int length = (int) Math.min(CHECKSUM_BYTES, inputOffset);
+        ByteBuffer bytes = ByteBuffer.allocate(length);
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            while (bytes.hasRemaining() && channel.read(bytes, inputOffset - length + bytes.position()) > 0) {
+                // Keep reading until the range is filled or the file ends
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes.flip());
+        return crc.getValue();
+    }
+
+    /**
+     * Reads the checkpoint of an output file, if it can be resumed from. A checkpoint is ignored, with the
+     * reason printed, if it belongs to another input, if the input is now shorter than the offset or its
+     * bytes before the offset have changed, or if the output is shorter than its committed length.
+     *
+     * <p><b>Time Complexity:</b> O(1)</p>
+     *
+     * @param input      the input file of the new run
+     * @param outputFile the output file of the new run
+     * @return the checkpoint to resume from, or null to start from the beginning
+     * @throws IOException if the sidecar exists but cannot be read
+     */
+    public static Checkpoint resume(Path input, Path outputFile) throws IOException {
+        Path sidecar = sidecar(outputFile);
+        if (!Files.isRegularFile(sidecar)) {
+            return null;
+        }
+
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(sidecar)) {
+            properties.load(reader);
+        }
+        Checkpoint checkpoint;
+        try {
+            checkpoint = new Checkpoint(properties.getProperty("input"),
+                    Long.parseLong(properties.getProperty("inputOffset")),
+                    Long.parseLong(properties.getProperty("lineNumber")),
+                    Long.parseLong(properties.getProperty("outputLength")),
+                    Long.parseLong(properties.getProperty("checksum")));
+        } catch (NumberFormatException e) {
+            System.out.println("Ignoring unreadable checkpoint: " + sidecar);
+            return null;
+        }
+
+        String reason = null;
+        if (!input.toAbsolutePath().toString().equals(checkpoint.input())) {
+            reason = "it was written for " + checkpoint.input();
+        } else if (Files.size(input) < checkpoint.inputOffset()
+                || checksum(input, checkpoint.inputOffset()) != checkpoint.checksum()) {
+            reason = "the input has changed";
+        } else if (!Files.isRegularFile(outputFile) || Files.size(outputFile) < checkpoint.outputLength()) {
+            reason = "the output is shorter than the committed length";
+        }
+        if (reason != null) {
+            System.out.println("Ignoring checkpoint " + sidecar + ": " + reason);
+            return null;
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Writes the checkpoint to the sidecar of an output file. The sidecar is replaced atomically, so a crash
+     * leaves either the previous checkpoint or this one.
+     *
+     * <p><b>Time Complexity:</b> O(1)</p>
+     *
+     * @param outputFile the output file the checkpoint belongs to
+     * @throws IOException if the sidecar cannot be written
+     */
+    public void write(Path outputFile) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("input", input);
+        properties.setProperty("inputOffset", Long.toString(inputOffset));
+        properties.setProperty("lineNumber", Long.toString(lineNumber));
+        properties.setProperty("outputLength", Long.toString(outputLength));
+        properties.setProperty("checksum", Long.toString(checksum));
+
+        Path sidecar = sidecar(outputFile);
+        Path temporary = sidecar.resolveSibling(sidecar.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temporary)) {
+            properties.store(writer, "Text simplifier checkpoint");
+        }
+        Files.move(temporary, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
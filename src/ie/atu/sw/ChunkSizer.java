@@ -0,0 +1,173 @@
+package ie.atu.sw;
+
+import java.util.List;
+
+/**
+ * The ChunkSizer class decides how many lines are grouped into each subtask when a file is processed
+ * concurrently. Forking one subtask per line costs a thread and a lambda capture for work that often takes
+ * only microseconds, so lines are batched into chunks, sized either by a fixed line count, by a fixed number
+ * of characters, or automatically from the measured cost per line.
+ *
+ * <p>In automatic mode each completed chunk reports its line count and duration, and the next chunks are
+ * sized so that one chunk takes roughly {@link #TARGET_CHUNK_NANOS}. The running estimate is updated without
+ * locking; concurrent updates may overwrite each other, which only makes the estimate slightly noisier. When
+ * every chunk of a file is planned up front, no chunk has finished while they are planned, so callers process
+ * a first sample chunk before planning the rest while the sizer is not yet {@link #isCalibrated calibrated}.</p>
+ */
+public class ChunkSizer {
+    /**
+     * How chunks are sized.
+     */
+    public enum Mode {
+        /** A fixed number of lines per chunk. */
+        LINES,
+        /** A fixed number of characters per chunk, counting one per line break. */
+        CHARACTERS,
+        /** A line count tuned from the measured cost per line. */
+        AUTO
+    }
+
+    public static final long TARGET_CHUNK_NANOS = 1_000_000;
+    public static final int INITIAL_AUTO_LINES = 64;
+    public static final int MAX_AUTO_LINES = 65_536;
+
+    private final Mode mode;
+    private final int limit;
+    private volatile double nanosPerLine = -1;
+
+    private ChunkSizer(Mode mode, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Chunk limit must be at least 1");
+        }
+        this.mode = mode;
+        this.limit = limit;
+    }
+
+    /**
+     * Creates a sizer with a fixed number of lines per chunk; 1 forks one subtask per line.
+     *
+     * @param lines the number of lines per chunk
+     * @return the chunk sizer
+     */
+    public static ChunkSizer lines(int lines) {
+        return new ChunkSizer(Mode.LINES, lines);
+    }
+
+    /**
+     * Creates a sizer that closes a chunk once it holds at least the given number of characters.
+     *
+     * @param characters the number of characters per chunk
+     * @return the chunk sizer
+     */
+    public static ChunkSizer characters(int characters) {
+        return new ChunkSizer(Mode.CHARACTERS, characters);
+    }
+
+    /**
+     * Creates a sizer that tunes the number of lines per chunk from the measured cost per line.
+     *
+     * @return the chunk sizer
+     */
+    public static ChunkSizer auto() {
+        return new ChunkSizer(Mode.AUTO, INITIAL_AUTO_LINES);
+    }
+
+    /**
+     * Creates a sizer from a mode and its limit, which is ignored for automatic sizing.
+     *
+     * @param mode  the sizing mode
+     * @param limit the lines or characters per chunk
+     * @return the chunk sizer
+     */
+    public static ChunkSizer of(Mode mode, int limit) {
+        return mode == Mode.AUTO ? auto() : new ChunkSizer(mode, limit);
+    }
+
+    /**
+     * Checks whether a chunk being accumulated is full.
+     *
+     * <p><b>Time Complexity:</b> O(1)</p>
+     *
+     * @param lines      the number of lines in the chunk so far
+     * @param characters the number of characters in the chunk so far
+     * @return true if the chunk should be forked
+     */
+    public boolean isFull(int lines, long characters) {
+        return switch (mode) {
+            case LINES -> lines >= limit;
+            case CHARACTERS -> characters >= limit;
+            case AUTO -> lines >= autoLines();
+        };
+    }
+
+    /**
+     * Finds where the chunk starting at a given line ends.
+     *
+     * <p><b>Time Complexity:</b> O(c), where c is the number of lines in the chunk.</p>
+     *
+     * @param lines the lines being chunked
+     * @param start the index of the first line of the chunk
+     * @return the index one past the last line of the chunk
+     */
+    public int chunkEnd(List<String> lines, int start) {
+        int end = start;
+        long characters = 0;
+        while (end < lines.size() && !isFull(end - start, characters)) {
+            characters += lines.get(end).length() + 1;
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Reports the cost of a completed chunk, used to tune automatic sizing.
+     *
+     * <p><b>Time Complexity:</b> O(1)</p>
+     *
+     * @param lines the number of lines in the chunk
+     * @param nanos the time taken to process the chunk
+     */
+    public void record(int lines, long nanos) {
+        if (mode != Mode.AUTO || lines == 0) {
+            return;
+        }
+        double observed = (double) nanos / lines;
+        double previous = nanosPerLine;
+        nanosPerLine = previous < 0 ? observed : previous * 0.8 + observed * 0.2;
+    }
+
+    /**
+     * Checks whether the sizing is known: always for fixed sizes, and for automatic sizing once a chunk has
+     * been recorded. Until then automatic chunks have the initial size of {@link #INITIAL_AUTO_LINES} lines.
+     *
+     * <p><b>Time Complexity:</b> O(1)</p>
+     *
+     * @return true if chunks planned now are sized from a measurement or a fixed limit
+     */
+    public boolean isCalibrated() {
+        return mode != Mode.AUTO || nanosPerLine >= 0;
+    }
+
+    private int autoLines() {
+        double estimate = nanosPerLine;
+        if (estimate < 0) {
+            return limit;
+        }
+        long lines = (long) (TARGET_CHUNK_NANOS / Math.max(estimate, 1.0));
+        return (int) Math.max(1, Math.min(MAX_AUTO_LINES, lines));
+    }
+
+    /**
+     * Describes the sizing, for reporting.
+     *
+     * @return a short description of the mode and its limit
+     */
+    @Override
+    public String toString() {
+        return switch (mode) {
+            case LINES -> limit + " lines";
+            case CHARACTERS -> limit + " characters";
+            case AUTO -> "auto";
+        };
+    }
+}
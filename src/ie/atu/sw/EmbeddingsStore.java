@@ -0,0 +1,72 @@
+package ie.atu.sw;
+
+import java.util.Collection;
+
+/**
+ * The EmbeddingsStore interface is the read-only view of a word embeddings vocabulary used by
+ * MapGoogle1000 and the Runner. It lets the embeddings come from the GloVe CSV file loaded into a map
+ * or from a memory-mapped binary file without the consumers needing to know which.
+ */
+public interface EmbeddingsStore {
+    /**
+     * Retrieves the embedding vector for a word.
+     *
+     * @param word the word to look up
+     * @return the embedding vector, or null if the word is not in the vocabulary
+     */
+    double[] get(String word);
+
+    /**
+     * Retrieves the embedding vector for a word scaled to unit length, ready to be scored against the
+     * candidate matrix. Stores that can read their vectors without going through get override this.
+     *
+     * @param word the word to look up
+     * @return a new unit-length vector, or null if the word is not in the vocabulary or has a zero vector
+     */
+    default float[] unitVector(String word) {
+        return new SimilarityCalculator().normalize(get(word));
+    }
+
+    /**
+     * Checks whether a word has an embedding.
+     *
+     * @param word the word to look up
+     * @return true if the word is in the vocabulary
+     */
+    boolean contains(String word);
+
+    /**
+     * Returns the number of words in the vocabulary.
+     *
+     * @return the vocabulary size
+     */
+    int size();
+
+    /**
+     * Returns the number of values in each embedding vector.
+     *
+     * @return the vector dimension, or 0 if the vocabulary is empty
+     */
+    int dimension();
+
+    /**
+     * Returns every word in the vocabulary.
+     *
+     * @return a collection view of the vocabulary
+     */
+    Collection<String> words();
+
+    /**
+     * Returns a table giving every word of the vocabulary a dense id, which MapGoogle1000 extends with the
+     * Google 1000 words instead of interning the vocabulary again. Stores that already index their words with
+     * a WordTable return it; the default builds a new one.
+     *
+     * <p><b>Time Complexity:</b> O(1) for a store that keeps a WordTable, otherwise O(n * l), where n is the
+     * number of words and l is the average word length</p>
+     *
+     * @return the word table of the vocabulary
+     */
+    default WordTable wordTable() {
+        return new WordTable(words());
+    }
+}
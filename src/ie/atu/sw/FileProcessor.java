@@ -1,6 +1,7 @@
 package ie.atu.sw;
 
 import java.io.*;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.StructuredTaskScope;
@@ -9,8 +10,48 @@ import java.util.concurrent.StructuredTaskScope;
  * The FileProcessor class provides methods for reading and writing files.
  */
 public abstract class FileProcessor {
+    private ChunkSizer chunkSizer = ChunkSizer.auto();
+    private boolean writeBehind;
+
     /**
-     * Writes a List of Strings to a specified file sequentially.
+     * Sets how lines are grouped into subtasks when the file is processed concurrently.
+     *
+     * @param chunkSizer the chunk sizing to use
+     */
+    public void setChunkSizer(ChunkSizer chunkSizer) {
+        this.chunkSizer = chunkSizer;
+    }
+
+    /**
+     * Returns how lines are grouped into subtasks when the file is processed concurrently.
+     *
+     * @return the chunk sizing in use
+     */
+    public ChunkSizer getChunkSizer() {
+        return chunkSizer;
+    }
+
+    /**
+     * Enables or disables write-behind, where output buffers are written to disk on a background virtual
+     * thread while the next buffer is filled.
+     *
+     * @param writeBehind true to write output asynchronously
+     */
+    public void setWriteBehind(boolean writeBehind) {
+        this.writeBehind = writeBehind;
+    }
+
+    /**
+     * Returns whether output is written asynchronously.
+     *
+     * @return true if write-behind is enabled
+     */
+    public boolean isWriteBehind() {
+        return writeBehind;
+    }
+
+    /**
+     * Writes a List of Strings to a specified file sequentially, encoded as UTF-8 through a ChannelLineWriter.
      *
      * <p><b>Time Complexity:</b> O(n), where n is the number of lines to be written.</p>
      *
@@ -20,11 +61,8 @@ public abstract class FileProcessor {
      */
     public void writeFileLines(String filePath, List<String> lines) throws IOException {
         System.out.println("Writing to file: " + filePath);
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
-            for (String line : lines) {
-                writer.write(line);
-                writer.newLine();
-            }
+        try (ChannelLineWriter writer = ChannelLineWriter.open(Path.of(filePath), writeBehind)) {
+            writer.writeLines(lines);
         }
     }
 
@@ -38,7 +76,8 @@ public abstract class FileProcessor {
     abstract void processFile(String textFile, String outputFile) throws Throwable;
 
     /**
-     * Loads data from a specified file and processes each line using virtual threads.
+     * Loads data from a specified file and processes its lines using virtual threads, one subtask per
+     * chunk of lines as sized by the chunk sizer.
      * Note: Order is not guaranteed for the process() method calls.
      *
      * <p><b>Time Complexity:</b> O(n), where n is the number of lines in the file.</p>
@@ -47,19 +86,53 @@ public abstract class FileProcessor {
      * @throws IOException if an I/O error occurs while reading the file
      */
     public void loadAndProcessLines(String filePath) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath));
-             var scope = StructuredTaskScope.open()) {
+        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+            processLines(reader::readLine);
+        }
+    }
+
+    /**
+     * Loads the lines of one byte range of a file and processes them as loadAndProcessLines does, so that
+     * several processes can each take their own part of one file.
+     *
+     * <p><b>Time Complexity:</b> O(n), where n is the number of lines in the range.</p>
+     *
+     * @param filePath the path to the file to be loaded
+     * @param start    the byte offset of the first line of the range, which must be the start of a line
+     * @param end      the byte offset just past the range; a line starting before it is processed whole
+     * @throws IOException if an I/O error occurs while reading the file
+     */
+    public void loadAndProcessLines(Path filePath, long start, long end) throws IOException {
+        try (OffsetLineReader reader = new OffsetLineReader(filePath, start, false)) {
+            processLines(() -> reader.offset() < end ? reader.readLine() : null);
+        }
+    }
+
+    /**
+     * Supplies lines until it returns null.
+     */
+    @FunctionalInterface
+    private interface LineReader {
+        String readLine() throws IOException;
+    }
+
+    private void processLines(LineReader reader) throws IOException {
+        ChunkSizer sizer = chunkSizer;
+        try (var scope = StructuredTaskScope.open()) {
+            List<String> chunk = new ArrayList<>();
+            long characters = 0;
             String line;
             while ((line = reader.readLine()) != null) {
-                String currentLine = line;
-                scope.fork(() -> {
-                    try {
-                        process(currentLine);
-                    } catch (Exception e) {
-                        System.err.println("Failed to process line. Error: " + e.getMessage());
-                    }
-                    return null;
-                });
+                chunk.add(line);
+                characters += line.length() + 1;
+                if (sizer.isFull(chunk.size(), characters)) {
+                    forkChunk(scope, sizer, chunk);
+                    chunk = new ArrayList<>();
+                    characters = 0;
+                }
+            }
+            if (!chunk.isEmpty()) {
+                forkChunk(scope, sizer, chunk);
             }
             scope.join();
         } catch (InterruptedException e) {
@@ -68,6 +141,34 @@ public abstract class FileProcessor {
         }
     }
 
+    private void forkChunk(StructuredTaskScope<Object, Void> scope, ChunkSizer sizer, List<String> chunk) {
+        scope.fork(() -> {
+            long start = System.nanoTime();
+            processChunk(chunk);
+            sizer.record(chunk.size(), System.nanoTime() - start);
+            return null;
+        });
+    }
+
+    /**
+     * Processes the lines of one chunk in order, inside the chunk's subtask. A line that fails is reported
+     * and skipped. Subclasses that need per-chunk state, such as reusable buffers, override this to create it
+     * once per chunk.
+     *
+     * <p><b>Time Complexity:</b> O(n), where n is the number of lines in the chunk.</p>
+     *
+     * @param chunk the lines to process
+     */
+    void processChunk(List<String> chunk) {
+        for (String currentLine : chunk) {
+            try {
+                process(currentLine);
+            } catch (Exception e) {
+                System.err.println("Failed to process line. Error: " + e.getMessage());
+            }
+        }
+    }
+
     /**
      * Abstract method to be implemented by subclasses to process a single line of the file.
      *
@@ -1,13 +1,14 @@
 package ie.atu.sw;
 
+import java.util.Collection;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The GloVEEmbeddingsLoader class is responsible for loading GloVe word embeddings
  * from a specified file into a concurrent hash map. It extends FileProcessor for
- * its file processing.
+ * its file processing and exposes the loaded map as an EmbeddingsStore.
  */
-public class GloVEEmbeddingsLoader extends FileProcessor {
+public class GloVEEmbeddingsLoader extends FileProcessor implements EmbeddingsStore {
     private final ConcurrentHashMap<String, double[]> embeddingsMap = new ConcurrentHashMap<>();
 
     /**
@@ -42,6 +43,34 @@ public class GloVEEmbeddingsLoader extends FileProcessor {
         return embeddingsMap;
     }
 
+    @Override
+    public double[] get(String word) {
+        return embeddingsMap.get(word);
+    }
+
+    @Override
+    public boolean contains(String word) {
+        return embeddingsMap.containsKey(word);
+    }
+
+    @Override
+    public int size() {
+        return embeddingsMap.size();
+    }
+
+    @Override
+    public int dimension() {
+        for (double[] vector : embeddingsMap.values()) {
+            return vector.length;
+        }
+        return 0;
+    }
+
+    @Override
+    public Collection<String> words() {
+        return embeddingsMap.keySet();
+    }
+
     /**
      * Processes a file to load GloVe embeddings.
      * This method uses the loadAndProcessLines method from the FileProcessor class
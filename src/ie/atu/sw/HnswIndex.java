@@ -0,0 +1,272 @@
+package ie.atu.sw;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * The HnswIndex class is an approximate nearest-neighbour index over a CandidateMatrix, based on
+ * Hierarchical Navigable Small World graphs (Malkov and Yashunin). Each candidate is linked to its closest
+ * neighbours on a random number of layers; a search descends greedily through the sparse upper layers and
+ * then explores the dense bottom layer with a bounded beam.
+ *
+ * <p>Three parameters trade recall for speed: {@code m}, the number of links per candidate;
+ * {@code efConstruction}, the beam width used while building; and {@code efSearch}, the beam width used per
+ * query, which can be changed after the index has been built.</p>
+ */
+public class HnswIndex implements NearestNeighbourIndex {
+    public static final int DEFAULT_M = 16;
+    public static final int DEFAULT_EF_CONSTRUCTION = 200;
+    public static final int DEFAULT_EF_SEARCH = 64;
+
+    private static final Comparator<Scored> BEST_FIRST = Comparator.comparingDouble(Scored::score).reversed();
+    private static final Comparator<Scored> WORST_FIRST = Comparator.comparingDouble(Scored::score);
+
+    private final CandidateMatrix matrix;
+    private final int m;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random;
+    private final int[][][] links;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private volatile int efSearch;
+
+    private record Scored(int id, float score) {
+    }
+
+    /**
+     * Builds an index with the default parameters.
+     *
+     * @param matrix the candidates to index
+     */
+    public HnswIndex(CandidateMatrix matrix) {
+        this(matrix, DEFAULT_M, DEFAULT_EF_CONSTRUCTION, DEFAULT_EF_SEARCH);
+    }
+
+    /**
+     * Builds an index over every row of a candidate matrix.
+     *
+     * <p><b>Time Complexity:</b> O(n * log(n) * efConstruction * d) expected, where n is the number of
+     * candidates and d is the vector dimension.</p>
+     *
+     * @param matrix         the candidates to index
+     * @param m              the number of links per candidate on the upper layers, doubled on the bottom layer
+     * @param efConstruction the beam width used while inserting candidates
+     * @param efSearch       the beam width used per query
+     */
+    public HnswIndex(CandidateMatrix matrix, int m, int efConstruction, int efSearch) {
+        if (m < 2 || efConstruction < 1 || efSearch < 1) {
+            throw new IllegalArgumentException("HNSW parameters must be m >= 2, efConstruction >= 1, efSearch >= 1");
+        }
+        this.matrix = matrix;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.levelMultiplier = 1.0 / Math.log(m);
+        this.random = new Random(42);
+        this.links = new int[matrix.size()][][];
+
+        for (int node = 0; node < matrix.size(); node++) {
+            insert(node);
+        }
+    }
+
+    /**
+     * Changes the beam width used per query. Larger values raise recall at the cost of speed.
+     *
+     * @param efSearch the new beam width
+     */
+    public void setEfSearch(int efSearch) {
+        if (efSearch < 1) {
+            throw new IllegalArgumentException("efSearch must be at least 1");
+        }
+        this.efSearch = efSearch;
+    }
+
+    /**
+     * Returns the beam width used per query.
+     *
+     * @return the current beam width
+     */
+    public int getEfSearch() {
+        return efSearch;
+    }
+
+    /**
+     * Finds the candidate most similar to a normalized query vector, approximately.
+     *
+     * <p><b>Time Complexity:</b> O(log(n) * efSearch * m * d) expected, where n is the number of candidates
+     * and d is the vector dimension.</p>
+     *
+     * @param query the unit-length query vector
+     * @return the id of the most similar candidate found, or -1 if the index is empty
+     */
+    @Override
+    public int nearest(float[] query) {
+        if (entryPoint < 0 || query.length != matrix.dimension()) {
+            return -1;
+        }
+
+        Scored current = new Scored(entryPoint, matrix.score(query, entryPoint));
+        for (int level = maxLevel; level > 0; level--) {
+            current = greedyClosest(query, current, level);
+        }
+        List<Scored> found = searchLayer(query, current, efSearch, 0);
+        return found.get(0).id();
+    }
+
+    @Override
+    public String word(int id) {
+        return matrix.word(id);
+    }
+
+    @Override
+    public int size() {
+        return matrix.size();
+    }
+
+    private void insert(int node) {
+        int level = (int) (-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+        links[node] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            links[node][l] = new int[0];
+        }
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        float[] query = matrix.row(node);
+        Scored current = new Scored(entryPoint, matrix.score(query, entryPoint));
+        for (int l = maxLevel; l > level; l--) {
+            current = greedyClosest(query, current, l);
+        }
+
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Scored> found = searchLayer(query, current, efConstruction, l);
+            int[] neighbours = selectNeighbours(found, m);
+            links[node][l] = neighbours;
+            for (int neighbour : neighbours) {
+                connect(neighbour, node, l);
+            }
+            current = found.get(0);
+        }
+
+        if (level > maxLevel) {
+            entryPoint = node;
+            maxLevel = level;
+        }
+    }
+
+    private void connect(int from, int to, int level) {
+        int[] existing = links[from][level];
+        int[] grown = new int[existing.length + 1];
+        System.arraycopy(existing, 0, grown, 0, existing.length);
+        grown[existing.length] = to;
+
+        int maxLinks = level == 0 ? 2 * m : m;
+        if (grown.length <= maxLinks) {
+            links[from][level] = grown;
+            return;
+        }
+
+        List<Scored> candidates = new ArrayList<>(grown.length);
+        for (int id : grown) {
+            candidates.add(new Scored(id, matrix.score(from, id)));
+        }
+        candidates.sort(BEST_FIRST);
+        links[from][level] = selectNeighbours(candidates, maxLinks);
+    }
+
+    /**
+     * Chooses up to max neighbours from candidates sorted best first, preferring candidates that are closer
+     * to the base than to any neighbour already chosen, so links spread in different directions. Remaining
+     * slots are filled with the best of the candidates that were passed over.
+     */
+    private int[] selectNeighbours(List<Scored> candidates, int max) {
+        List<Scored> selected = new ArrayList<>(max);
+        List<Scored> skipped = new ArrayList<>();
+        for (Scored candidate : candidates) {
+            if (selected.size() >= max) {
+                break;
+            }
+            boolean diverse = true;
+            for (Scored chosen : selected) {
+                if (matrix.score(candidate.id(), chosen.id()) > candidate.score()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            (diverse ? selected : skipped).add(candidate);
+        }
+        for (int i = 0; i < skipped.size() && selected.size() < max; i++) {
+            selected.add(skipped.get(i));
+        }
+
+        int[] ids = new int[selected.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = selected.get(i).id();
+        }
+        return ids;
+    }
+
+    private Scored greedyClosest(float[] query, Scored start, int level) {
+        Scored current = start;
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int neighbour : links[current.id()][level]) {
+                float score = matrix.score(query, neighbour);
+                if (score > current.score()) {
+                    current = new Scored(neighbour, score);
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Beam search on one layer, returning up to ef candidates sorted best first.
+     */
+    private List<Scored> searchLayer(float[] query, Scored start, int ef, int level) {
+        BitSet visited = new BitSet(matrix.size());
+        PriorityQueue<Scored> frontier = new PriorityQueue<>(BEST_FIRST);
+        PriorityQueue<Scored> results = new PriorityQueue<>(WORST_FIRST);
+        visited.set(start.id());
+        frontier.add(start);
+        results.add(start);
+
+        while (!frontier.isEmpty()) {
+            Scored closest = frontier.poll();
+            if (results.size() >= ef && closest.score() < results.peek().score()) {
+                break;
+            }
+            for (int neighbour : links[closest.id()][level]) {
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+                float score = matrix.score(query, neighbour);
+                if (results.size() < ef || score > results.peek().score()) {
+                    Scored scored = new Scored(neighbour, score);
+                    frontier.add(scored);
+                    results.add(scored);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+
+        List<Scored> found = new ArrayList<>(results);
+        found.sort(BEST_FIRST);
+        return found;
+    }
+}
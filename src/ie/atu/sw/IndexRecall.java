@@ -0,0 +1,100 @@
+package ie.atu.sw;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The IndexRecall class measures how often an approximate NearestNeighbourIndex returns the same word as
+ * the exact search, and how long each takes, over a sample of words from the embeddings vocabulary.
+ */
+public class IndexRecall {
+    /**
+     * The outcome of a recall measurement.
+     *
+     * @param queries          the number of queries run
+     * @param recall           the fraction of queries where both indexes returned the same word
+     * @param exactNanos       the total time taken by the exact index
+     * @param approximateNanos the total time taken by the approximate index
+     */
+    public record Result(int queries, double recall, long exactNanos, long approximateNanos) {
+        @Override
+        public String toString() {
+            if (queries == 0) {
+                return "recall@1 not measured, no queries";
+            }
+            return String.format("recall@1 %.2f%% over %d queries, exact %.1f us/query, approximate %.1f us/query (%.1fx)",
+                    recall * 100, queries, exactNanos / 1000.0 / queries, approximateNanos / 1000.0 / queries,
+                    (double) exactNanos / Math.max(1, approximateNanos));
+        }
+    }
+
+    /**
+     * Picks a random sample of words from the vocabulary and returns their normalized vectors.
+     *
+     * <p><b>Time Complexity:</b> O(n + s * d), where n is the vocabulary size, s is the sample size and d is
+     * the vector dimension.</p>
+     *
+     * @param store the embeddings to sample from
+     * @param count the number of words to sample
+     * @param seed  the seed of the random sample
+     * @return the normalized vectors of the sampled words
+     */
+    public static List<float[]> sampleQueries(EmbeddingsStore store, int count, long seed) {
+        List<String> words = new ArrayList<>(store.words());
+        Collections.shuffle(words, new Random(seed));
+
+        List<float[]> queries = new ArrayList<>(Math.min(count, words.size()));
+        for (int i = 0; i < words.size() && queries.size() < count; i++) {
+            float[] query = store.unitVector(words.get(i));
+            if (query != null) {
+                queries.add(query);
+            }
+        }
+        return queries;
+    }
+
+    /**
+     * Runs every query against both indexes and compares the results.
+     *
+     * <p><b>Time Complexity:</b> O(q * (e + a)), where q is the number of queries and e and a are the costs of
+     * one exact and one approximate query.</p>
+     *
+     * @param exact       the exact index
+     * @param approximate the approximate index
+     * @param queries     the normalized query vectors
+     * @return the recall and timings of the approximate index
+     */
+    public static Result measure(NearestNeighbourIndex exact, NearestNeighbourIndex approximate, List<float[]> queries) {
+        // Warm up both indexes with one untimed pass so the timings are not dominated by JIT compilation
+        for (float[] query : queries) {
+            exact.nearest(query);
+            approximate.nearest(query);
+        }
+
+        String[] expected = new String[queries.size()];
+        long start = System.nanoTime();
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = wordOf(exact, exact.nearest(queries.get(i)));
+        }
+        long exactNanos = System.nanoTime() - start;
+
+        int matches = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < expected.length; i++) {
+            String actual = wordOf(approximate, approximate.nearest(queries.get(i)));
+            if (actual != null && actual.equals(expected[i])) {
+                matches++;
+            }
+        }
+        long approximateNanos = System.nanoTime() - start;
+
+        double recall = expected.length == 0 ? 1.0 : (double) matches / expected.length;
+        return new Result(expected.length, recall, exactNanos, approximateNanos);
+    }
+
+    private static String wordOf(NearestNeighbourIndex index, int id) {
+        return id < 0 ? null : index.word(id);
+    }
+}
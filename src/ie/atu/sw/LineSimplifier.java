@@ -0,0 +1,214 @@
+package ie.atu.sw;
+
+import java.util.Set;
+
+/**
+ * The LineSimplifier class is a single-pass tokenizer that simplifies a line of text word by word. It scans
+ * the line's characters once, lowercasing and filtering each whitespace-separated token into a reusable buffer
+ * (keeping only a-z and apostrophes, as the previous regex cleanup did), and checks the Google 1000 words
+ * straight from that buffer, so the common case allocates nothing but the output line.
+ *
+ * <p>Unlike splitting on whitespace, the output keeps the line's original spacing, the punctuation around each
+ * word and its capitalization: a replacement is written in the same case pattern as the word it replaces, and a
+ * word that is kept is copied exactly as it appeared.</p>
+ *
+ * <p>In two-phase processing the same tokenizer first collects the distinct words of the input that need a
+ * search, and then simplifies each line with the replacements resolved for them in one batch.</p>
+ *
+ * <p>A LineSimplifier reuses its buffers between lines, so it must not be shared between threads; each
+ * subtask creates its own.</p>
+ */
+public class LineSimplifier {
+    private final MapGoogle1000 mapGoogle1000;
+    private final ReplacementTable resolved;
+    private final StringBuilder output = new StringBuilder(256);
+    private char[] cleaned = new char[64];
+    private int cleanedLength;
+    private int coreStart;
+    private int coreEnd;
+
+    /**
+     * Constructs a LineSimplifier that simplifies words with the given MapGoogle1000.
+     *
+     * @param mapGoogle1000 The MapGoogle1000 to process words, or null if only collectTokens is used
+     */
+    public LineSimplifier(MapGoogle1000 mapGoogle1000) {
+        this(mapGoogle1000, null);
+    }
+
+    /**
+     * Constructs a LineSimplifier that looks words up in a table of resolved replacements first, and only
+     * asks the MapGoogle1000 for words missing from it.
+     *
+     * @param mapGoogle1000 The MapGoogle1000 to process words
+     * @param resolved      the replacements resolved in advance, or null to use only the MapGoogle1000
+     */
+    public LineSimplifier(MapGoogle1000 mapGoogle1000, ReplacementTable resolved) {
+        this.mapGoogle1000 = mapGoogle1000;
+        this.resolved = resolved;
+    }
+
+    /**
+     * Simplifies a line of text, replacing each word not in the Google 1000 with its most similar Google 1000 word.
+     *
+     * <p><b>Time Complexity:</b> O(c + w * s), where c is the number of characters in the line, w is the
+     * number of words that need a search and s is the cost of one lookup in processWord.</p>
+     *
+     * @param line The line of text to process
+     * @return The processed line
+     */
+    public String simplify(String line) {
+        output.setLength(0);
+        int length = line.length();
+        int i = 0;
+        while (i < length) {
+            char c = line.charAt(i);
+            if (Character.isWhitespace(c)) {
+                output.append(c);
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < length && !Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+            appendToken(line, start, i);
+        }
+        return output.toString();
+    }
+
+    /**
+     * Adds every word of a line that is not a Google 1000 word to a set, cleaned as simplify would clean it.
+     *
+     * <p><b>Time Complexity:</b> O(c), where c is the number of characters in the line.</p>
+     *
+     * @param line  The line of text to scan
+     * @param words the set receiving the words, which may be shared between threads if it is concurrent
+     */
+    public void collectWords(String line, Set<String> words) {
+        collect(line, words, false);
+    }
+
+    /**
+     * Adds every word of a line to a set, cleaned as simplify would clean it, whether or not it is a Google 1000
+     * word. Unlike collectWords this needs no MapGoogle1000, so it can run before the embeddings are loaded.
+     *
+     * <p><b>Time Complexity:</b> O(c), where c is the number of characters in the line.</p>
+     *
+     * @param line   The line of text to scan
+     * @param tokens the set receiving the words, which may be shared between threads if it is concurrent
+     */
+    public void collectTokens(String line, Set<String> tokens) {
+        collect(line, tokens, true);
+    }
+
+    private void collect(String line, Set<String> words, boolean all) {
+        int length = line.length();
+        int i = 0;
+        while (i < length) {
+            if (Character.isWhitespace(line.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < length && !Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+            clean(line, start, i);
+            if (cleanedLength > 0 && all) {
+                words.add(new String(cleaned, 0, cleanedLength));
+            } else if (cleanedLength > 0) {
+                int id = mapGoogle1000.wordId(cleaned, cleanedLength);
+                if (id >= 0 && !mapGoogle1000.isCommonWord(id)) {
+                    words.add(new String(cleaned, 0, cleanedLength));
+                }
+            }
+        }
+    }
+
+    /**
+     * Lowercases a token into the cleaned buffer, keeping only a-z and apostrophes, and records where the
+     * kept characters start and end in the line.
+     */
+    private void clean(String line, int start, int end) {
+        if (cleaned.length < end - start) {
+            cleaned = new char[end - start];
+        }
+
+        cleanedLength = 0;
+        coreStart = -1;
+        coreEnd = -1;
+        for (int i = start; i < end; i++) {
+            char c = Character.toLowerCase(line.charAt(i));
+            if ((c >= 'a' && c <= 'z') || c == '\'') {
+                cleaned[cleanedLength++] = c;
+                if (coreStart < 0) {
+                    coreStart = i;
+                }
+                coreEnd = i + 1;
+            }
+        }
+    }
+
+    private void appendToken(String line, int start, int end) {
+        clean(line, start, end);
+        if (cleanedLength == 0) {
+            output.append(line, start, end);
+            return;
+        }
+        int id = mapGoogle1000.wordId(cleaned, cleanedLength);
+        if (id < 0 || mapGoogle1000.isCommonWord(id)) {
+            if (id < 0) {
+                Metrics.get().unknownWord();
+            } else {
+                Metrics.get().google1000Hit();
+            }
+            output.append(line, start, end);
+            return;
+        }
+
+        String word = new String(cleaned, 0, cleanedLength);
+        String replacement = resolved == null ? null : resolved.get(word);
+        if (replacement == null) {
+            replacement = mapGoogle1000.processWord(id, word);
+        }
+        if (replacement.equals(word)) {
+            output.append(line, start, end);
+            return;
+        }
+
+        output.append(line, start, coreStart);
+        appendInCaseOf(replacement, line, coreStart, coreEnd);
+        output.append(line, coreEnd, end);
+    }
+
+    /**
+     * Appends a replacement in the case pattern of the original word: all capitals if the original was all
+     * capitals (and more than one letter), capitalized if it started with a capital, and lowercase otherwise.
+     */
+    private void appendInCaseOf(String replacement, String line, int start, int end) {
+        int letters = 0;
+        int upper = 0;
+        boolean firstUpper = false;
+        for (int i = start; i < end; i++) {
+            char c = line.charAt(i);
+            if (Character.isLetter(c)) {
+                if (Character.isUpperCase(c)) {
+                    firstUpper |= letters == 0;
+                    upper++;
+                }
+                letters++;
+            }
+        }
+
+        if (letters > 1 && upper == letters) {
+            for (int i = 0; i < replacement.length(); i++) {
+                output.append(Character.toUpperCase(replacement.charAt(i)));
+            }
+        } else if (firstUpper && !replacement.isEmpty()) {
+            output.append(Character.toUpperCase(replacement.charAt(0))).append(replacement, 1, replacement.length());
+        } else {
+            output.append(replacement);
+        }
+    }
+}
@@ -1,94 +1,436 @@
 package ie.atu.sw;
 
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.function.Function;
 
 /**
  * The MapGoogle1000 class manages word embeddings and similarity calculations
  * for text simplification using the Google 1000 most common words.
+ *
+ * <p>The vocabulary, every embeddings word and every Google 1000 word, has dense integer ids: the embeddings
+ * words keep the ids of the store's own word table, which is extended with the Google 1000 words the store
+ * lacks when the map is constructed. Google 1000 membership is a bit per id and the replacement table is an array
+ * indexed by id, so resolving a token costs a single hash lookup.</p>
  */
 public class MapGoogle1000 {
-    private final ConcurrentSkipListSet<String> google1000Set;
-    private final ConcurrentHashMap<String, double[]> embeddingsMap;
-    private final ConcurrentHashMap<String, double[]> google1000Embeddings = new ConcurrentHashMap<>();;
+    private final List<String> google1000Words;
+    private final WordTable vocabulary;
+    private final BitSet google1000Ids;
+    private final EmbeddingsStore embeddingsMap;
+    private volatile CandidateMatrix google1000Embeddings = CandidateMatrix.empty();
+    private volatile NearestNeighbourIndex google1000Index = google1000Embeddings;
+    private volatile Function<CandidateMatrix, NearestNeighbourIndex> indexFactory = matrix -> matrix;
     private final SimilarityCalculator similarityCalculator = new SimilarityCalculator();;
+    private volatile String[] replacements;
+    private volatile boolean hasReplacementTable;
+    private volatile WordCache cache;
 
     /**
-     * Constructs a MapGoogle1000 object with the given Google 1000 set and embeddings map.
+     * Constructs a MapGoogle1000 object with the given Google 1000 set and embeddings store.
      *
-     * <p><b>Time Complexity:</b> O(1), this constructor performs constant time operations</p>
+     * <p><b>Time Complexity:</b> O(g), where g is the number of words in google1000Set, for a store that keeps
+     * a word table, which is shared rather than copied; otherwise O(n + g), where n is the number of words in
+     * embeddingsMap. The set itself is not kept, so its skip-list nodes can be reclaimed once the caller
+     * drops it.</p>
      *
      * @param google1000Set The set of Google 1000 most common words
-     * @param embeddingsMap The map of word embeddings
+     * @param embeddingsMap The store of word embeddings, loaded from either the CSV or the binary format
      */
-    public MapGoogle1000(ConcurrentSkipListSet<String> google1000Set, ConcurrentHashMap<String, double[]> embeddingsMap) {
-        this.google1000Set = google1000Set;
+    public MapGoogle1000(ConcurrentSkipListSet<String> google1000Set, EmbeddingsStore embeddingsMap) {
+        this.google1000Words = List.copyOf(google1000Set);
         this.embeddingsMap = embeddingsMap;
+
+        this.vocabulary = new WordTable(embeddingsMap.wordTable(), google1000Words);
+        this.google1000Ids = new BitSet(vocabulary.size());
+        for (String word : google1000Words) {
+            google1000Ids.set(vocabulary.id(word));
+        }
+        this.replacements = new String[vocabulary.size()];
+    }
+
+    /**
+     * Constructs a MapGoogle1000 from the parts of a restored ModelSnapshot, with its candidate matrix already
+     * built. The vocabulary must give the embeddings words and the Google 1000 words ids, as the first
+     * constructor does.
+     *
+     * <p><b>Time Complexity:</b> O(g), where g is the number of Google 1000 words</p>
+     *
+     * @param google1000Words the Google 1000 words, in candidate order
+     * @param vocabulary      the interned vocabulary
+     * @param embeddingsMap   the restored embeddings
+     * @param matrix          the restored candidate matrix, used as the exact index
+     * @param replacements    the replacement table indexed by vocabulary id, or null if none was saved
+     */
+    MapGoogle1000(List<String> google1000Words, WordTable vocabulary, EmbeddingsStore embeddingsMap,
+                  CandidateMatrix matrix, String[] replacements) {
+        this.google1000Words = List.copyOf(google1000Words);
+        this.vocabulary = vocabulary;
+        this.embeddingsMap = embeddingsMap;
+        this.google1000Ids = new BitSet(vocabulary.size());
+        for (String word : this.google1000Words) {
+            google1000Ids.set(vocabulary.id(word));
+        }
+        this.google1000Embeddings = matrix;
+        this.google1000Index = matrix;
+        this.replacements = replacements != null ? replacements : new String[vocabulary.size()];
+        this.hasReplacementTable = replacements != null;
     }
 
     /**
-     * Initializes the Google 1000 embeddings map with embeddings for words in the Google 1000 set.
+     * Looks up the vocabulary id of a word held in a char buffer, without allocating a String.
+     *
+     * <p><b>Time Complexity:</b> O(l) expected, where l is the length of the word</p>
      *
-     * <p><b>Time Complexity:</b> O(n), where n is the number of words in google1000Set, this method
-     * iterates through each word in google1000Set once</p>
+     * @param chars  the buffer holding the lowercased word, starting at index 0
+     * @param length the number of characters in the word
+     * @return the id of the word, or -1 if it is neither an embeddings word nor a Google 1000 word
+     */
+    public int wordId(char[] chars, int length) {
+        return vocabulary.id(chars, 0, length);
+    }
+
+    /**
+     * Looks up the vocabulary id of a word.
+     *
+     * <p><b>Time Complexity:</b> O(l) expected, where l is the length of the word</p>
+     *
+     * @param word the lowercased word
+     * @return the id of the word, or -1 if it is neither an embeddings word nor a Google 1000 word
+     */
+    public int wordId(String word) {
+        return vocabulary.id(word);
+    }
+
+    /**
+     * Checks whether the word with a given vocabulary id is one of the Google 1000 words.
+     *
+     * <p><b>Time Complexity:</b> O(1)</p>
+     *
+     * @param id the id returned by wordId, or -1
+     * @return true if the word is a Google 1000 word and is kept as it is
+     */
+    public boolean isCommonWord(int id) {
+        return id >= 0 && google1000Ids.get(id);
+    }
+
+    /**
+     * Checks whether a word held in a char buffer is one of the Google 1000 words, without allocating a String.
+     *
+     * <p><b>Time Complexity:</b> O(l), where l is the length of the word</p>
+     *
+     * @param chars  the buffer holding the lowercased word, starting at index 0
+     * @param length the number of characters in the word
+     * @return true if the word is a Google 1000 word and is kept as it is
+     */
+    public boolean isCommonWord(char[] chars, int length) {
+        return isCommonWord(wordId(chars, length));
+    }
+
+    /**
+     * Initializes the Google 1000 candidate matrix with the normalized embeddings of the words in the
+     * Google 1000 set, and builds the nearest-neighbour index over it.
+     *
+     * <p><b>Time Complexity:</b> O(n * d), where n is the number of words in google1000Set and d is the
+     * vector dimension, this method iterates through each word in google1000Set once, plus the cost of
+     * building the index (none for the default exact index)</p>
      */
     public void initializeGoogle1000Embeddings() {
-        for (String word : google1000Set) {
-            double[] embedding = embeddingsMap.get(word);
-            if (embedding != null) {
-                google1000Embeddings.put(word, embedding);
+        CandidateMatrix matrix = CandidateMatrix.build(google1000Words, embeddingsMap);
+        google1000Index = indexFactory.apply(matrix);
+        google1000Embeddings = matrix;
+    }
+
+    /**
+     * Sets how the nearest-neighbour index is built over the candidate matrix. The default uses the matrix
+     * itself, which is an exact brute-force search. Takes effect on the next initializeGoogle1000Embeddings.
+     *
+     * <p><b>Time Complexity:</b> O(1), this method performs a single assignment</p>
+     *
+     * @param indexFactory builds the index from the candidate matrix, for example {@code HnswIndex::new}
+     */
+    public void setIndexFactory(Function<CandidateMatrix, NearestNeighbourIndex> indexFactory) {
+        this.indexFactory = indexFactory;
+    }
+
+    /**
+     * Returns the candidate matrix, which is also the exact nearest-neighbour index.
+     *
+     * @return the candidate matrix built by initializeGoogle1000Embeddings
+     */
+    public CandidateMatrix getCandidateMatrix() {
+        return google1000Embeddings;
+    }
+
+    /**
+     * Returns the nearest-neighbour index used by findMostSimilarWord.
+     *
+     * @return the index built by initializeGoogle1000Embeddings
+     */
+    public NearestNeighbourIndex getIndex() {
+        return google1000Index;
+    }
+
+    /**
+     * Returns the embeddings this map searches.
+     *
+     * @return the embeddings store
+     */
+    public EmbeddingsStore getEmbeddings() {
+        return embeddingsMap;
+    }
+
+    /**
+     * Maps every word in the embeddings vocabulary to its most similar Google 1000 word in a parallel
+     * batch, so that processWord becomes a single lookup. The vocabulary is split into one slice per
+     * available processor and each slice is resolved in its own subtask.
+     * Must be called after initializeGoogle1000Embeddings.
+     *
+     * <p><b>Time Complexity:</b> O(n * m), where n is the number of words in embeddingsMap and m is the
+     * number of words in google1000Embeddings, divided across the available processors</p>
+     *
+     * @return the precomputed table, which is also installed for use by processWord
+     * @throws InterruptedException if interrupted while waiting for the batch to complete
+     */
+    public ReplacementTable precomputeReplacements() throws InterruptedException {
+        List<String> words = new ArrayList<>(embeddingsMap.words());
+        ReplacementTable table = new ReplacementTable(words.size());
+        int slices = Runtime.getRuntime().availableProcessors();
+        int sliceSize = (words.size() + slices - 1) / slices;
+
+        try (var scope = StructuredTaskScope.open()) {
+            for (int start = 0; start < words.size(); start += sliceSize) {
+                List<String> slice = words.subList(start, Math.min(start + sliceSize, words.size()));
+                scope.fork(() -> {
+                    for (String word : slice) {
+                        table.put(word, isCommonWord(vocabulary.id(word)) ? word : findMostSimilarWord(word));
+                    }
+                    return null;
+                });
             }
+            scope.join();
         }
+
+        setReplacementTable(table);
+        return table;
     }
 
     /**
-     * Finds the most similar word from the Google 1000 set for a given word.
+     * Resolves a set of distinct words in one batch, such as every word of a corpus that is not a Google 1000
+     * word. Words already in the replacement table are copied from it; the rest that have an embedding are
+     * split into one slice per available processor, and each slice is searched with a single batched call to
+     * the index. Words without an embedding are left out, as processWord returns them unchanged.
      *
-     * <p><b>Time Complexity:</b> O(n), where n is the number of words in google1000Embeddings, this method
-     * iterates through each word in google1000Embeddings to calculate similarity</p>
+     * <p><b>Time Complexity:</b> O(w * m * d), where w is the number of words to search, m is the number of
+     * rows in google1000Embeddings and d is the vector dimension, divided across the available processors</p>
      *
-     * @param word The word to find a similar word for
-     * @return The most similar word from the Google 1000 set, or the original word if not found
+     * @param words the distinct words to resolve
+     * @return a table mapping each resolved word to its replacement
+     * @throws InterruptedException if interrupted while waiting for the batch to complete
      */
-    public String findMostSimilarWord(String word) {
-        double[] wordVector = embeddingsMap.get(word);
-        if (wordVector == null) {
-            return word; // If the word is not in the embeddings map, return the word itself
+    public ReplacementTable resolveAll(Collection<String> words) throws InterruptedException {
+        ReplacementTable resolved = new ReplacementTable(words.size());
+        String[] table = replacements;
+        List<String> pending = new ArrayList<>(words.size());
+        for (String word : words) {
+            int id = vocabulary.id(word);
+            if (id < 0) {
+                continue;
+            }
+            if (table[id] != null) {
+                resolved.put(word, table[id]);
+            } else if (google1000Ids.get(id)) {
+                resolved.put(word, word);
+            } else {
+                pending.add(word);
+            }
         }
 
-        String mostSimilarWord = word;
-        double highestSimilarity = -1.0;
-
-        for (var entry : google1000Embeddings.entrySet()) {
-            double[] googleWordVector = entry.getValue();
-            double similarity = similarityCalculator.calculate(wordVector, googleWordVector);
+        NearestNeighbourIndex candidates = google1000Index;
+        int slices = Runtime.getRuntime().availableProcessors();
+        int sliceSize = Math.max(1, (pending.size() + slices - 1) / slices);
+        try (var scope = StructuredTaskScope.open()) {
+            for (int start = 0; start < pending.size(); start += sliceSize) {
+                List<String> slice = pending.subList(start, Math.min(start + sliceSize, pending.size()));
+                scope.fork(() -> {
+                    int[] nearest = candidates.nearestAll(embeddingsMap, slice);
+                    for (int i = 0; i < nearest.length; i++) {
+                        resolved.put(slice.get(i), nearest[i] < 0 ? slice.get(i) : candidates.word(nearest[i]));
+                    }
+                    return null;
+                });
+            }
+            scope.join();
+        }
+        return resolved;
+    }
 
-            if (similarity > highestSimilarity) {
-                highestSimilarity = similarity;
-                mostSimilarWord = entry.getKey();
+    /**
+     * Installs a previously computed replacement table, such as one loaded from disk. The table is copied
+     * into an array indexed by vocabulary id; entries for words outside the vocabulary are never looked up
+     * and are left out.
+     *
+     * <p><b>Time Complexity:</b> O(n), where n is the size of the vocabulary</p>
+     *
+     * @param replacementTable the table to use in processWord, or null to search on every call
+     */
+    public void setReplacementTable(ReplacementTable replacementTable) {
+        String[] table = new String[vocabulary.size()];
+        if (replacementTable != null) {
+            for (int id = 0; id < table.length; id++) {
+                table[id] = replacementTable.get(vocabulary.word(id));
             }
         }
+        replacements = table;
+        hasReplacementTable = replacementTable != null;
+    }
+
+    /**
+     * Checks whether a replacement table has been installed, by precomputeReplacements, setReplacementTable
+     * or a restored snapshot.
+     *
+     * @return true if processWord resolves the embeddings vocabulary with a lookup
+     */
+    public boolean hasReplacementTable() {
+        return hasReplacementTable;
+    }
+
+    /**
+     * Returns the interned vocabulary, for saving in a snapshot.
+     *
+     * @return the vocabulary of embeddings words and Google 1000 words
+     */
+    WordTable vocabulary() {
+        return vocabulary;
+    }
 
+    /**
+     * Returns the Google 1000 words, for saving in a snapshot.
+     *
+     * @return the words, in candidate order
+     */
+    List<String> google1000Words() {
+        return google1000Words;
+    }
+
+    /**
+     * Returns the installed replacement table, for saving in a snapshot.
+     *
+     * @return the replacement of each vocabulary id, or null if no table is installed
+     */
+    String[] replacementsById() {
+        return hasReplacementTable ? replacements : null;
+    }
+
+    /**
+     * Installs a cache in front of findMostSimilarWord, so each distinct word is searched at most once while
+     * it stays cached.
+     *
+     * <p><b>Time Complexity:</b> O(1), this method performs a single assignment</p>
+     *
+     * @param cache the cache to use in processWord, or null to search on every call
+     */
+    public void setCache(WordCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Returns the cache in front of findMostSimilarWord.
+     *
+     * @return the installed cache, or null if there is none
+     */
+    public WordCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Finds the most similar word from the Google 1000 set for a given word.
+     *
+     * <p><b>Time Complexity:</b> O(n * d) with the exact index, where n is the number of rows in
+     * google1000Embeddings and d is the vector dimension, this method makes a single pass of dot products over
+     * the candidate matrix; sublinear in n with an approximate index</p>
+     *
+     * @param word The word to find a similar word for
+     * @return The most similar word from the Google 1000 set, or the original word if not found
+     */
+    public String findMostSimilarWord(String word) {
+        Metrics.SimilaritySearchEvent event = new Metrics.SimilaritySearchEvent();
+        event.begin();
+        long start = System.nanoTime();
+        String mostSimilarWord = searchMostSimilarWord(word);
+        Metrics.get().similaritySearched(word, mostSimilarWord, event, System.nanoTime() - start);
         return mostSimilarWord;
     }
 
+    private String searchMostSimilarWord(String word) {
+        NearestNeighbourIndex candidates = google1000Index;
+        int mostSimilar = candidates.nearest(embeddingsMap, word);
+        // If the word is not in the embeddings map or nothing was found, return the word itself
+        return mostSimilar < 0 ? word : candidates.word(mostSimilar);
+    }
+
     /**
      * Processes a word by either returning it if it's in the Google 1000 set,
      * finding a similar word if it has an embedding, or returning the original word.
      *
-     * <p><b>Time Complexity:</b> O(1) for best case(word is in google1000Set), O(m) for worst case
-     * (findMostSimilarWord is called), where m is the number of words in google1000Embeddings</p>
+     * When a replacement table has been precomputed, the word is resolved with a single lookup; otherwise
+     * the result of the similarity search is served from the cache when one is installed.
+     *
+     * <p><b>Time Complexity:</b> O(1) for best case(word is in google1000Set or the replacement table),
+     * O(m) for worst case (findMostSimilarWord is called), where m is the number of words in
+     * google1000Embeddings</p>
      *
      * @param word The word to process
      * @return The processed word
      */
     public String processWord(String word) {
-        if (google1000Set.contains(word)) {
+        return processWord(vocabulary.id(word), word);
+    }
+
+    /**
+     * Processes a word whose vocabulary id has already been looked up, so no further hashing of the word is
+     * needed unless it has to be searched.
+     *
+     * <p><b>Time Complexity:</b> O(1) for best case, O(m) for worst case, as for processWord(String)</p>
+     *
+     * @param id   the id returned by wordId for the word, or -1
+     * @param word The word to process
+     * @return The processed word
+     */
+    public String processWord(int id, String word) {
+        if (id < 0) {
+            Metrics.get().unknownWord();
             return word;
-        } else if (embeddingsMap.containsKey(word)) {
-            return findMostSimilarWord(word);
-        } else {
+        }
+
+        String replacement = replacements[id];
+        if (replacement != null) {
+            Metrics.get().replacementTableHit();
+            return replacement;
+        }
+
+        if (google1000Ids.get(id)) {
+            Metrics.get().google1000Hit();
             return word;
         }
+        return findCachedMostSimilarWord(word); // Every id outside the Google 1000 is an embeddings word
+    }
+
+    private String findCachedMostSimilarWord(String word) {
+        WordCache wordCache = cache;
+        if (wordCache == null) {
+            return findMostSimilarWord(word);
+        }
+
+        String replacement = wordCache.get(word);
+        if (replacement == null) {
+            replacement = findMostSimilarWord(word);
+            wordCache.put(word, replacement);
+        }
+        return replacement;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,313 @@
+package ie.atu.sw;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The Metrics class collects the counters and latency histograms of the simplification pipeline: how long
+ * the embeddings took to load, how each word was resolved, how often and how long the similarity search ran,
+ * how many lines were simplified per second and how long output took to write. All updates are LongAdder
+ * increments, so instrumentation adds no contention between the virtual threads on the hot path.
+ *
+ * <p>The same measurements are available three ways: as a summary printed at the end of a run, live over JMX
+ * through {@link MetricsMXBean}, and as JFR events (in the "Text Simplifier" category) when a flight recording
+ * is running, for example with {@code -XX:StartFlightRecording}.</p>
+ */
+public class Metrics implements MetricsMXBean {
+    private static final String OBJECT_NAME = "ie.atu.sw:type=Metrics";
+    private static final Metrics INSTANCE = register(new Metrics());
+
+    private final LongAdder embeddingsLoadNanos = new LongAdder();
+    private final LongAdder embeddingsLoaded = new LongAdder();
+    private final LongAdder google1000Hits = new LongAdder();
+    private final LongAdder replacementTableHits = new LongAdder();
+    private final LongAdder unknownWords = new LongAdder();
+    private final LatencyHistogram similaritySearch = new LatencyHistogram();
+    private final LongAdder linesProcessed = new LongAdder();
+    private final LongAdder fileNanos = new LongAdder();
+    private final LatencyHistogram outputWrites = new LatencyHistogram();
+
+    /**
+     * Emitted for each embeddings file loaded.
+     */
+    @Name("ie.atu.sw.EmbeddingsLoad")
+    @Label("Embeddings Load")
+    @Category("Text Simplifier")
+    static class EmbeddingsLoadEvent extends Event {
+        @Label("File")
+        String file;
+        @Label("Words")
+        int words;
+    }
+
+    /**
+     * Emitted for each call to findMostSimilarWord.
+     */
+    @Name("ie.atu.sw.SimilaritySearch")
+    @Label("Similarity Search")
+    @Category("Text Simplifier")
+    @Description("A search of the Google 1000 candidates for the word most similar to a rare word")
+    static class SimilaritySearchEvent extends Event {
+        @Label("Word")
+        String word;
+        @Label("Replacement")
+        String replacement;
+    }
+
+    /**
+     * Emitted for each text file simplified.
+     */
+    @Name("ie.atu.sw.TextFile")
+    @Label("Text File")
+    @Category("Text Simplifier")
+    static class TextFileEvent extends Event {
+        @Label("File")
+        String file;
+        @Label("Lines")
+        long lines;
+    }
+
+    /**
+     * Emitted for each block of output written.
+     */
+    @Name("ie.atu.sw.OutputWrite")
+    @Label("Output Write")
+    @Category("Text Simplifier")
+    static class OutputWriteEvent extends Event {
+        @Label("File")
+        String file;
+        @Label("Lines")
+        int lines;
+    }
+
+    private Metrics() {
+    }
+
+    private static Metrics register(Metrics metrics) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, new ObjectName(OBJECT_NAME));
+        } catch (JMException | SecurityException e) {
+            System.err.println("Metrics are not available over JMX. Error: " + e.getMessage());
+        }
+        return metrics;
+    }
+
+    /**
+     * Returns the metrics of this process.
+     *
+     * @return the shared metrics
+     */
+    public static Metrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Records a completed embeddings load.
+     *
+     * @param file  the embeddings file
+     * @param words the number of words loaded
+     * @param event the event started before loading, committed here if the recording wants it
+     * @param nanos the time taken to load
+     */
+    void embeddingsLoaded(String file, int words, EmbeddingsLoadEvent event, long nanos) {
+        embeddingsLoadNanos.reset();
+        embeddingsLoadNanos.add(nanos);
+        embeddingsLoaded.reset();
+        embeddingsLoaded.add(words);
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = file;
+            event.words = words;
+            event.commit();
+        }
+    }
+
+    /** Counts a word kept because it is a Google 1000 word. */
+    void google1000Hit() {
+        google1000Hits.increment();
+    }
+
+    /** Counts a word resolved from the precomputed replacement table. */
+    void replacementTableHit() {
+        replacementTableHits.increment();
+    }
+
+    /** Counts a word with no embedding, which is kept as it is. */
+    void unknownWord() {
+        unknownWords.increment();
+    }
+
+    /**
+     * Records a completed similarity search.
+     *
+     * @param word        the word searched for
+     * @param replacement the word found
+     * @param event       the event started before the search
+     * @param nanos       the time taken by the search
+     */
+    void similaritySearched(String word, String replacement, SimilaritySearchEvent event, long nanos) {
+        similaritySearch.record(nanos);
+        event.end();
+        if (event.shouldCommit()) {
+            event.word = word;
+            event.replacement = replacement;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records a simplified text file.
+     *
+     * @param file  the input file
+     * @param lines the number of lines simplified
+     * @param event the event started before processing
+     * @param nanos the wall-clock time taken to read, simplify and write the file
+     */
+    void fileProcessed(String file, long lines, TextFileEvent event, long nanos) {
+        linesProcessed.add(lines);
+        fileNanos.add(nanos);
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = file;
+            event.lines = lines;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records a block of output written.
+     *
+     * @param file  the output file
+     * @param lines the number of lines written
+     * @param event the event started before writing
+     * @param nanos the time taken to write
+     */
+    void outputWritten(String file, int lines, OutputWriteEvent event, long nanos) {
+        outputWrites.record(nanos);
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = file;
+            event.lines = lines;
+            event.commit();
+        }
+    }
+
+    /**
+     * Returns the durations of the similarity searches.
+     *
+     * @return the search latency histogram
+     */
+    public LatencyHistogram getSimilaritySearchLatency() {
+        return similaritySearch;
+    }
+
+    /**
+     * Returns the durations of the output writes.
+     *
+     * @return the write latency histogram
+     */
+    public LatencyHistogram getOutputWriteLatency() {
+        return outputWrites;
+    }
+
+    @Override
+    public double getEmbeddingsLoadMillis() {
+        return embeddingsLoadNanos.sum() / 1e6;
+    }
+
+    @Override
+    public long getEmbeddingsLoaded() {
+        return embeddingsLoaded.sum();
+    }
+
+    @Override
+    public long getGoogle1000Hits() {
+        return google1000Hits.sum();
+    }
+
+    @Override
+    public long getReplacementTableHits() {
+        return replacementTableHits.sum();
+    }
+
+    @Override
+    public long getUnknownWords() {
+        return unknownWords.sum();
+    }
+
+    @Override
+    public long getSimilaritySearches() {
+        return similaritySearch.count();
+    }
+
+    @Override
+    public double getSimilaritySearchMeanMicros() {
+        return similaritySearch.meanNanos() / 1e3;
+    }
+
+    @Override
+    public double getSimilaritySearchP99Micros() {
+        return similaritySearch.percentileNanos(99) / 1e3;
+    }
+
+    @Override
+    public long getLinesProcessed() {
+        return linesProcessed.sum();
+    }
+
+    @Override
+    public double getLinesPerSecond() {
+        long nanos = fileNanos.sum();
+        return nanos == 0 ? 0 : linesProcessed.sum() / (nanos / 1e9);
+    }
+
+    @Override
+    public long getOutputWrites() {
+        return outputWrites.count();
+    }
+
+    @Override
+    public double getOutputWriteMillis() {
+        return outputWrites.totalNanos() / 1e6;
+    }
+
+    @Override
+    public void reset() {
+        embeddingsLoadNanos.reset();
+        embeddingsLoaded.reset();
+        google1000Hits.reset();
+        replacementTableHits.reset();
+        unknownWords.reset();
+        similaritySearch.reset();
+        linesProcessed.reset();
+        fileNanos.reset();
+        outputWrites.reset();
+    }
+
+    /**
+     * Builds the report printed at the end of a run.
+     *
+     * @return a multi-line summary of every metric
+     */
+    public String summary() {
+        return String.join(System.lineSeparator(),
+                "Metrics:",
+                String.format("  Embeddings load:    %s for %d words",
+                        LatencyHistogram.format(embeddingsLoadNanos.sum()), getEmbeddingsLoaded()),
+                String.format("  Words resolved:     %d Google 1000 hits, %d table hits, %d unknown",
+                        getGoogle1000Hits(), getReplacementTableHits(), getUnknownWords()),
+                String.format("  Similarity search:  %d calls, %s", similaritySearch.count(), similaritySearch),
+                String.format("  Text processing:    %d lines in %s, %.0f lines/s",
+                        getLinesProcessed(), LatencyHistogram.format(fileNanos.sum()), getLinesPerSecond()),
+                String.format("  Output writes:      %d writes, total %s, %s",
+                        outputWrites.count(), LatencyHistogram.format(outputWrites.totalNanos()), outputWrites));
+    }
+}
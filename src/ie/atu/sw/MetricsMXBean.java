@@ -0,0 +1,96 @@
+package ie.atu.sw;
+
+/**
+ * The MetricsMXBean interface is the JMX view of the Metrics of a run, registered as
+ * {@code ie.atu.sw:type=Metrics} so it can be watched live in JConsole or VisualVM.
+ */
+public interface MetricsMXBean {
+    /**
+     * Returns the time taken by the last embeddings load, in milliseconds.
+     *
+     * @return the time taken by the last embeddings load, in milliseconds
+     */
+    double getEmbeddingsLoadMillis();
+
+    /**
+     * Returns the number of words in the last loaded embeddings.
+     *
+     * @return the number of words in the last loaded embeddings
+     */
+    long getEmbeddingsLoaded();
+
+    /**
+     * Returns the number of words kept because they are Google 1000 words.
+     *
+     * @return the number of words kept because they are Google 1000 words
+     */
+    long getGoogle1000Hits();
+
+    /**
+     * Returns the number of words resolved from the precomputed replacement table.
+     *
+     * @return the number of words resolved from the precomputed replacement table
+     */
+    long getReplacementTableHits();
+
+    /**
+     * Returns the number of words that were neither Google 1000 words nor in the embeddings.
+     *
+     * @return the number of words that were neither Google 1000 words nor in the embeddings
+     */
+    long getUnknownWords();
+
+    /**
+     * Returns the number of calls to findMostSimilarWord.
+     *
+     * @return the number of calls to findMostSimilarWord
+     */
+    long getSimilaritySearches();
+
+    /**
+     * Returns the mean duration of findMostSimilarWord, in microseconds.
+     *
+     * @return the mean duration of findMostSimilarWord, in microseconds
+     */
+    double getSimilaritySearchMeanMicros();
+
+    /**
+     * Returns the estimated 99th percentile duration of findMostSimilarWord, in microseconds.
+     *
+     * @return the estimated 99th percentile duration of findMostSimilarWord, in microseconds
+     */
+    double getSimilaritySearchP99Micros();
+
+    /**
+     * Returns the number of lines simplified by TextProcessor.
+     *
+     * @return the number of lines simplified by TextProcessor
+     */
+    long getLinesProcessed();
+
+    /**
+     * Returns the lines simplified per second of file processing time.
+     *
+     * @return the lines simplified per second of file processing time
+     */
+    double getLinesPerSecond();
+
+    /**
+     * Returns the number of output writes.
+     *
+     * @return the number of output writes
+     */
+    long getOutputWrites();
+
+    /**
+     * Returns the total time spent writing output, in milliseconds.
+     *
+     * @return the total time spent writing output, in milliseconds
+     */
+    double getOutputWriteMillis();
+
+    /**
+     * Clears every counter and histogram.
+     */
+    void reset();
+}
@@ -0,0 +1,560 @@
+package ie.atu.sw;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * The ModelSnapshot class saves a fully initialized MapGoogle1000 to a single file and restores it on a later
+ * start, so the embeddings do not have to be parsed, the vocabulary interned or the candidate matrix built
+ * again. The snapshot records the size and CRC-32C checksum of the embeddings and Google 1000 files it was
+ * built from, and is only restored while both files are unchanged.
+ *
+ * <p>The file is a little-endian header of magic number, version, the size and checksum of each source file,
+ * the vocabulary size, the dimension, the offset of the vector block and the length of the file, followed by
+ * the vocabulary (an unsigned short length and the UTF-8 bytes of each word, in id order), the bit set of ids
+ * that have an embedding, the ids of the Google 1000 words, the candidate matrix as row ids and float rows,
+ * the replacement table, if one was installed, as the index configuration it was built with followed by one
+ * replacement id per word, and finally the vector block, which is memory-mapped rather than read.</p>
+ *
+ * <p>The vector block holds each word's unit-length vector, exactly as the search uses it, so a restored model
+ * gives the same replacements as the one that was saved. As every search is by cosine similarity, the restored
+ * embeddings return the unit-length vector from get as well.</p>
+ */
+public class ModelSnapshot {
+    static final int MAGIC = 0x534D5354; // "TSMS"
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 64;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final ValueLayout.OfFloat FLOAT = ValueLayout.JAVA_FLOAT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfShort SHORT = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private ModelSnapshot() {
+    }
+
+    /**
+     * Computes the CRC-32C checksum of a whole file.
+     *
+     * <p><b>Time Complexity:</b> O(b), where b is the size of the file in bytes.</p>
+     *
+     * @param file the file to read
+     * @return the checksum
+     * @throws IOException if the file cannot be read
+     */
+    public static long checksum(Path file) throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer.clear()) > 0) {
+                crc.update(buffer.flip());
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Writes a snapshot of an initialized map. The file is written beside the snapshot and then moved over
+     * it, so a failed write leaves any previous snapshot in place.
+     *
+     * <p><b>Time Complexity:</b> O(n * d + b), where n is the size of the vocabulary, d is the vector dimension
+     * and b is the size of the source files, which are read for their checksums.</p>
+     *
+     * @param mapGoogle1000  the map, after initializeGoogle1000Embeddings
+     * @param snapshotFile   the snapshot file to write
+     * @param embeddingsFile the embeddings file the map was loaded from
+     * @param google1000File the Google 1000 file the map was loaded from
+     * @param index          the configuration of the index the replacement table was built with
+     * @throws IOException if a source file cannot be read or the snapshot cannot be written
+     */
+    public static void write(MapGoogle1000 mapGoogle1000, Path snapshotFile, Path embeddingsFile, Path google1000File,
+                             String index) throws IOException {
+        WordTable vocabulary = mapGoogle1000.vocabulary();
+        EmbeddingsStore embeddings = mapGoogle1000.getEmbeddings();
+        CandidateMatrix matrix = mapGoogle1000.getCandidateMatrix();
+        List<String> google1000Words = mapGoogle1000.google1000Words();
+        String[] replacements = mapGoogle1000.replacementsById();
+        int size = vocabulary.size();
+        int dimension = embeddings.dimension();
+        if (matrix.size() > 0 && matrix.dimension() != dimension) {
+            throw new IOException("The candidate matrix does not match the embeddings dimension");
+        }
+
+        List<byte[]> encoded = new ArrayList<>(size);
+        BitSet embedded = new BitSet(size);
+        long wordBytes = 0;
+        for (int id = 0; id < size; id++) {
+            String word = vocabulary.word(id);
+            byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xFFFF) {
+                throw new IOException("Word is too long for the snapshot format: " + word);
+            }
+            encoded.add(bytes);
+            wordBytes += Short.BYTES + bytes.length;
+            if (embeddings.contains(word)) {
+                embedded.set(id);
+            }
+        }
+        long[] embeddedWords = embedded.toLongArray();
+        byte[] indexBytes = index.getBytes(StandardCharsets.UTF_8);
+        if (indexBytes.length > 0xFFFF) {
+            throw new IOException("Index configuration is too long for the snapshot format: " + index);
+        }
+        long sectionBytes = wordBytes
+                + Integer.BYTES + (long) embeddedWords.length * Long.BYTES
+                + Integer.BYTES + (long) google1000Words.size() * Integer.BYTES
+                + Integer.BYTES + (long) matrix.size() * (Integer.BYTES + (long) dimension * Float.BYTES)
+                + Integer.BYTES + (replacements != null ? Short.BYTES + indexBytes.length + (long) size * Integer.BYTES : 0);
+        long alignment = BinaryEmbeddingsStore.BLOCK_ALIGNMENT;
+        long vectorOffset = (HEADER_SIZE + sectionBytes + alignment - 1) / alignment * alignment;
+        long length = vectorOffset + (long) size * dimension * Float.BYTES;
+
+        // A unique temporary file, as the worker processes of a sharded run may all write the snapshot at once
+        Path temporary = Files.createTempFile(snapshotFile.toAbsolutePath().getParent(), snapshotFile.getFileName() + ".", ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            Output out = new Output(channel);
+            out.putInt(MAGIC).putInt(VERSION);
+            out.putLong(checksum(embeddingsFile)).putLong(Files.size(embeddingsFile));
+            out.putLong(checksum(google1000File)).putLong(Files.size(google1000File));
+            out.putInt(size).putInt(dimension).putLong(vectorOffset).putLong(length);
+
+            for (byte[] bytes : encoded) {
+                out.putShort(bytes.length).put(bytes);
+            }
+            out.putInt(embeddedWords.length);
+            for (long bits : embeddedWords) {
+                out.putLong(bits);
+            }
+            out.putInt(google1000Words.size());
+            for (String word : google1000Words) {
+                out.putInt(vocabulary.id(word));
+            }
+            out.putInt(matrix.size());
+            for (int row = 0; row < matrix.size(); row++) {
+                out.putInt(vocabulary.id(matrix.word(row)));
+            }
+            for (int row = 0; row < matrix.size(); row++) {
+                out.putFloats(matrix.row(row));
+            }
+            out.putInt(replacements != null ? 1 : 0);
+            if (replacements != null) {
+                out.putShort(indexBytes.length).put(indexBytes);
+                for (String replacement : replacements) {
+                    // Only a replacement outside the vocabulary is dropped, and that word is then searched again
+                    out.putInt(replacement == null ? -1 : vocabulary.id(replacement));
+                }
+            }
+
+            out.padTo(vectorOffset);
+            float[] zero = new float[dimension];
+            for (int id = 0; id < size; id++) {
+                float[] unit = embedded.get(id) ? embeddings.unitVector(vocabulary.word(id)) : null;
+                out.putFloats(unit != null ? unit : zero);
+            }
+            out.flush();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        System.out.println("Wrote model snapshot: " + snapshotFile);
+    }
+
+    /**
+     * Restores a map from a snapshot, if it can be. A snapshot is ignored, with the reason printed, if it is
+     * missing, of another format or version, truncated, corrupt, or built from source files whose size or
+     * checksum no longer match. A saved replacement table is dropped, and so computed again, if it was built
+     * with another index configuration than this run's. The vector block stays mapped until the restored
+     * embeddings are closed.
+     *
+     * <p><b>Time Complexity:</b> O(n + b), where n is the size of the vocabulary, which is interned again, and
+     * b is the size of the source files, which are read for their checksums; the vectors are not read until
+     * they are used.</p>
+     *
+     * @param snapshotFile   the snapshot file
+     * @param embeddingsFile the embeddings file of this run
+     * @param google1000File the Google 1000 file of this run
+     * @param index          the index configuration of this run, as given to write
+     * @return the restored map, with its candidate matrix and any replacement table installed, or null to
+     * build the model from the source files
+     * @throws IOException if the snapshot or a source file cannot be read
+     */
+    public static MapGoogle1000 restore(Path snapshotFile, Path embeddingsFile, Path google1000File, String index)
+            throws IOException {
+        if (!Files.isRegularFile(snapshotFile)) {
+            return null;
+        }
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            MemorySegment file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            String reason = null;
+            if (file.byteSize() < HEADER_SIZE || file.get(INT, 0) != MAGIC) {
+                reason = "it is not a model snapshot";
+            } else if (file.get(INT, 4) != VERSION) {
+                reason = "it has version " + file.get(INT, 4);
+            } else if (file.get(LONG, 56) != file.byteSize()) {
+                reason = "it is truncated";
+            } else if (file.get(LONG, 16) != Files.size(embeddingsFile) || file.get(LONG, 8) != checksum(embeddingsFile)) {
+                reason = "the embeddings file has changed";
+            } else if (file.get(LONG, 32) != Files.size(google1000File) || file.get(LONG, 24) != checksum(google1000File)) {
+                reason = "the Google 1000 file has changed";
+            }
+            if (reason == null) {
+                try {
+                    return read(file, arena, index, snapshotFile);
+                } catch (CorruptSnapshotException | IndexOutOfBoundsException e) {
+                    reason = "it is corrupt, " + e.getMessage();
+                }
+            }
+            System.out.println("Ignoring model snapshot " + snapshotFile + ": " + reason);
+            arena.close();
+            return null;
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Thrown while reading a snapshot whose sections do not fit the file or refer to ids outside the
+     * vocabulary.
+     */
+    @SuppressWarnings("serial")
+    private static final class CorruptSnapshotException extends Exception {
+        CorruptSnapshotException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Reads the sections of a snapshot whose header has been checked, validating every count, length and id
+     * against the file before it is used.
+     */
+    private static MapGoogle1000 read(MemorySegment file, Arena arena, String index, Path snapshotFile)
+            throws CorruptSnapshotException {
+        int size = file.get(INT, 40);
+        int dimension = file.get(INT, 44);
+        long vectorOffset = file.get(LONG, 48);
+        if (size < 0 || dimension < 1 || vectorOffset < HEADER_SIZE || vectorOffset > file.byteSize()
+                || (file.byteSize() - vectorOffset) / Float.BYTES != (long) size * dimension
+                || (file.byteSize() - vectorOffset) % Float.BYTES != 0) {
+            throw new CorruptSnapshotException("the vector block does not match the header");
+        }
+        // Every word takes at least its length prefix before the vector block, which bounds what is allocated
+        if (size > (vectorOffset - HEADER_SIZE) / Short.BYTES) {
+            throw new CorruptSnapshotException("the vocabulary size " + size + " does not fit the file");
+        }
+        Sections in = new Sections(file, vectorOffset);
+
+        String[] words = new String[size];
+        for (int id = 0; id < size; id++) {
+            int length = Short.toUnsignedInt(in.getShort());
+            words[id] = new String(in.getBytes(length), StandardCharsets.UTF_8);
+        }
+        WordTable vocabulary = WordTable.ofRows(words);
+
+        long[] embeddedWords = new long[in.getCount((size + Long.SIZE - 1) / Long.SIZE, "embedded words")];
+        for (int i = 0; i < embeddedWords.length; i++) {
+            embeddedWords[i] = in.getLong();
+        }
+        BitSet embedded = BitSet.valueOf(embeddedWords);
+
+        int google1000Count = in.getCount(size, "Google 1000 words");
+        List<String> google1000Words = new ArrayList<>(google1000Count);
+        for (int i = 0; i < google1000Count; i++) {
+            google1000Words.add(words[in.getId(size)]);
+        }
+
+        int rows = in.getCount(size, "candidate rows");
+        if ((long) rows * dimension > Integer.MAX_VALUE) {
+            throw new CorruptSnapshotException("the candidate matrix is too large");
+        }
+        String[] rowWords = new String[rows];
+        for (int row = 0; row < rows; row++) {
+            rowWords[row] = words[in.getId(size)];
+        }
+        float[] rowVectors = in.getFloats(rows * dimension);
+        CandidateMatrix matrix = CandidateMatrix.of(rowWords, rowVectors, dimension);
+
+        String[] replacements = null;
+        if (in.getInt() != 0) {
+            String tableIndex = new String(in.getBytes(Short.toUnsignedInt(in.getShort())), StandardCharsets.UTF_8);
+            if (tableIndex.equals(index)) {
+                replacements = new String[size];
+                for (int id = 0; id < size; id++) {
+                    int replacement = in.getInt();
+                    if (replacement < -1 || replacement >= size) {
+                        throw new CorruptSnapshotException("replacement id " + replacement + " is out of range");
+                    }
+                    replacements[id] = replacement < 0 ? null : words[replacement];
+                }
+            } else {
+                System.out.println("Dropping the replacement table of model snapshot " + snapshotFile
+                        + ": it was built with the " + tableIndex + " index, not the " + index + " index");
+            }
+        }
+
+        MemorySegment vectors = file.asSlice(vectorOffset, (long) size * dimension * Float.BYTES);
+        EmbeddingsStore embeddings = new Embeddings(arena, vectors, vocabulary, embedded, dimension);
+        return new MapGoogle1000(google1000Words, vocabulary, embeddings, matrix, replacements);
+    }
+
+    /**
+     * Reads the little-endian sections of a snapshot in order, refusing to read past the vector block.
+     */
+    private static final class Sections {
+        private final MemorySegment file;
+        private final long limit;
+        private long position = HEADER_SIZE;
+
+        Sections(MemorySegment file, long limit) {
+            this.file = file;
+            this.limit = limit;
+        }
+
+        private long take(long bytes) throws CorruptSnapshotException {
+            if (bytes < 0 || bytes > limit - position) {
+                throw new CorruptSnapshotException("a section runs past the vector block at offset " + position);
+            }
+            long start = position;
+            position += bytes;
+            return start;
+        }
+
+        short getShort() throws CorruptSnapshotException {
+            return file.get(SHORT, take(Short.BYTES));
+        }
+
+        int getInt() throws CorruptSnapshotException {
+            return file.get(INT, take(Integer.BYTES));
+        }
+
+        long getLong() throws CorruptSnapshotException {
+            return file.get(LONG, take(Long.BYTES));
+        }
+
+        byte[] getBytes(int length) throws CorruptSnapshotException {
+            return file.asSlice(take(length), length).toArray(ValueLayout.JAVA_BYTE);
+        }
+
+        float[] getFloats(int count) throws CorruptSnapshotException {
+            long start = take((long) count * Float.BYTES);
+            float[] values = new float[count];
+            MemorySegment.copy(file, FLOAT, start, values, 0, count);
+            return values;
+        }
+
+        int getCount(int max, String what) throws CorruptSnapshotException {
+            int count = getInt();
+            if (count < 0 || count > max) {
+                throw new CorruptSnapshotException("the number of " + what + ", " + count + ", is out of range");
+            }
+            return count;
+        }
+
+        int getId(int size) throws CorruptSnapshotException {
+            int id = getInt();
+            if (id < 0 || id >= size) {
+                throw new CorruptSnapshotException("word id " + id + " is out of range");
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Buffers the little-endian writes of a snapshot and keeps count of the bytes written.
+     */
+    private static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private long position;
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        Output putInt(int value) throws IOException {
+            ensureRemaining(Integer.BYTES);
+            buffer.putInt(value);
+            position += Integer.BYTES;
+            return this;
+        }
+
+        Output putLong(long value) throws IOException {
+            ensureRemaining(Long.BYTES);
+            buffer.putLong(value);
+            position += Long.BYTES;
+            return this;
+        }
+
+        Output putShort(int value) throws IOException {
+            ensureRemaining(Short.BYTES);
+            buffer.putShort((short) value);
+            position += Short.BYTES;
+            return this;
+        }
+
+        Output put(byte[] bytes) throws IOException {
+            ensureRemaining(bytes.length);
+            buffer.put(bytes);
+            position += bytes.length;
+            return this;
+        }
+
+        Output putFloats(float[] values) throws IOException {
+            for (float value : values) {
+                ensureRemaining(Float.BYTES);
+                buffer.putFloat(value);
+            }
+            position += (long) values.length * Float.BYTES;
+            return this;
+        }
+
+        void padTo(long offset) throws IOException {
+            while (position < offset) {
+                ensureRemaining(1);
+                buffer.put((byte) 0);
+                position++;
+            }
+        }
+
+        private void ensureRemaining(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * The embeddings of a restored snapshot: the unit-length vector of each vocabulary id that has one, read
+     * from the mapped vector block. A zero vector, which has no unit-length form, is stored as zeros.
+     */
+    static final class Embeddings implements EmbeddingsStore, AutoCloseable {
+        private final Arena arena;
+        private final MemorySegment vectors;
+        private final WordTable vocabulary;
+        private final BitSet embedded;
+        private final int dimension;
+        private final List<String> words;
+
+        Embeddings(Arena arena, MemorySegment vectors, WordTable vocabulary, BitSet embedded, int dimension) {
+            this.arena = arena;
+            this.vectors = vectors;
+            this.vocabulary = vocabulary;
+            this.embedded = embedded;
+            this.dimension = dimension;
+            List<String> words = new ArrayList<>(embedded.cardinality());
+            for (int id = embedded.nextSetBit(0); id >= 0; id = embedded.nextSetBit(id + 1)) {
+                words.add(vocabulary.word(id));
+            }
+            this.words = Collections.unmodifiableList(words);
+        }
+
+        private float[] row(String word) {
+            int id = vocabulary.id(word);
+            if (id < 0 || !embedded.get(id)) {
+                return null;
+            }
+            float[] vector = new float[dimension];
+            MemorySegment.copy(vectors, FLOAT, (long) id * dimension * Float.BYTES, vector, 0, dimension);
+            return vector;
+        }
+
+        /**
+         * Retrieves the unit-length vector of a word, widened to double precision.
+         *
+         * <p><b>Time Complexity:</b> O(d), where d is the vector dimension.</p>
+         *
+         * @param word the word to look up
+         * @return a new array holding the vector, or null if the word is not in the vocabulary
+         */
+        @Override
+        public double[] get(String word) {
+            float[] row = row(word);
+            if (row == null) {
+                return null;
+            }
+            double[] vector = new double[dimension];
+            for (int i = 0; i < dimension; i++) {
+                vector[i] = row[i];
+            }
+            return vector;
+        }
+
+        /**
+         * Reads the unit-length vector of a word as it was saved, without normalizing it again.
+         *
+         * <p><b>Time Complexity:</b> O(d), where d is the vector dimension.</p>
+         *
+         * @param word the word to look up
+         * @return a new unit-length vector, or null if the word is not in the vocabulary or has a zero vector
+         */
+        @Override
+        public float[] unitVector(String word) {
+            float[] row = row(word);
+            if (row == null) {
+                return null;
+            }
+            for (float value : row) {
+                if (value != 0) {
+                    return row;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean contains(String word) {
+            int id = vocabulary.id(word);
+            return id >= 0 && embedded.get(id);
+        }
+
+        @Override
+        public int size() {
+            return words.size();
+        }
+
+        @Override
+        public int dimension() {
+            return dimension;
+        }
+
+        @Override
+        public Collection<String> words() {
+            return words;
+        }
+
+        /**
+         * Unmaps the snapshot. The store must not be used after it is closed.
+         */
+        @Override
+        public void close() {
+            arena.close();
+        }
+    }
+}
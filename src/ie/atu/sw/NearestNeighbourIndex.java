@@ -0,0 +1,91 @@
+package ie.atu.sw;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The NearestNeighbourIndex interface is the search structure MapGoogle1000 uses to find the replacement
+ * candidate most similar to a word. CandidateMatrix is the exact brute-force implementation and HnswIndex
+ * is an approximate graph-based one for large replacement vocabularies.
+ */
+public interface NearestNeighbourIndex {
+    /**
+     * Finds the candidate most similar to a normalized query vector.
+     *
+     * @param query the unit-length query vector
+     * @return the id of the most similar candidate, or -1 if none was found
+     */
+    int nearest(float[] query);
+
+    /**
+     * Finds the most similar candidate for each of a batch of normalized query vectors. Indexes that can
+     * share work between queries override this; the default runs each query on its own.
+     *
+     * @param queries the unit-length query vectors
+     * @return the id of the most similar candidate for each query, or -1 where none was found
+     */
+    default int[] nearestAll(List<float[]> queries) {
+        int[] nearest = new int[queries.size()];
+        for (int i = 0; i < nearest.length; i++) {
+            nearest[i] = nearest(queries.get(i));
+        }
+        return nearest;
+    }
+
+    /**
+     * Finds the candidate most similar to a word of an embeddings store. Indexes that can score the store's
+     * own representation of the word override this; the default searches with its unit vector.
+     *
+     * @param store the embeddings holding the word
+     * @param word  the word to search for
+     * @return the id of the most similar candidate, or -1 if the word has no usable embedding or none was found
+     */
+    default int nearest(EmbeddingsStore store, String word) {
+        float[] query = store.unitVector(word);
+        return query == null ? -1 : nearest(query);
+    }
+
+    /**
+     * Finds the most similar candidate for each of a batch of words of an embeddings store. The default
+     * searches the unit vectors of the words that have one with a single call to nearestAll.
+     *
+     * @param store the embeddings holding the words
+     * @param words the words to search for
+     * @return the id of the most similar candidate for each word, or -1 where the word has no usable
+     *         embedding or none was found
+     */
+    default int[] nearestAll(EmbeddingsStore store, List<String> words) {
+        int[] nearest = new int[words.size()];
+        int[] positions = new int[words.size()];
+        List<float[]> queries = new ArrayList<>(words.size());
+        for (int i = 0; i < nearest.length; i++) {
+            float[] query = store.unitVector(words.get(i));
+            if (query == null) {
+                nearest[i] = -1;
+            } else {
+                positions[queries.size()] = i;
+                queries.add(query);
+            }
+        }
+        int[] found = nearestAll(queries);
+        for (int i = 0; i < found.length; i++) {
+            nearest[positions[i]] = found[i];
+        }
+        return nearest;
+    }
+
+    /**
+     * Returns the word of a candidate.
+     *
+     * @param id the candidate id returned by nearest
+     * @return the candidate word
+     */
+    String word(int id);
+
+    /**
+     * Returns the number of candidates in the index.
+     *
+     * @return the number of candidates
+     */
+    int size();
+}
@@ -0,0 +1,175 @@
+package ie.atu.sw;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * The OffHeapEmbeddingsStore class keeps every vector in one MemorySegment outside the Java heap, so the
+ * garbage collector never scans or copies them and heap use no longer grows with the number of vectors. Words
+ * are given dense integer ids by a WordTable, and a word's vector is the row of the segment at that id.
+ *
+ * <p>The segment is either allocated from a shared Arena and filled from another store, or a memory-mapped
+ * binary embeddings file, which unlike a MappedByteBuffer may be larger than 2 GB. The memory is released
+ * when the store is closed; the store must not be used after that.</p>
+ */
+public class OffHeapEmbeddingsStore implements EmbeddingsStore, AutoCloseable {
+    private static final ValueLayout.OfFloat FLOAT = BinaryEmbeddingsStore.FLOAT;
+
+    private final Arena arena;
+    private final MemorySegment vectors;
+    private final WordTable index;
+    private final int dimension;
+
+    private OffHeapEmbeddingsStore(Arena arena, MemorySegment vectors, WordTable index, int dimension) {
+        this.arena = arena;
+        this.vectors = vectors;
+        this.index = index;
+        this.dimension = dimension;
+    }
+
+    /**
+     * Copies the vectors of another store into off-heap memory. Once this returns, the source store can be
+     * dropped so that its heap is reclaimed.
+     *
+     * <p><b>Time Complexity:</b> O(n * d), where n is the number of words and d is the vector dimension.</p>
+     *
+     * @param source the embeddings to copy
+     * @return the off-heap copy
+     */
+    public static OffHeapEmbeddingsStore copyOf(EmbeddingsStore source) {
+        WordTable index = new WordTable(source.words());
+        int dimension = source.dimension();
+        Arena arena = Arena.ofShared();
+        MemorySegment vectors = arena.allocate((long) index.size() * dimension * Float.BYTES, BinaryEmbeddingsStore.BLOCK_ALIGNMENT);
+
+        float[] row = new float[dimension];
+        for (int id = 0; id < index.size(); id++) {
+            double[] vector = source.get(index.word(id));
+            for (int i = 0; i < dimension; i++) {
+                row[i] = (float) vector[i];
+            }
+            MemorySegment.copy(row, 0, vectors, FLOAT, (long) id * dimension * Float.BYTES, dimension);
+        }
+        return new OffHeapEmbeddingsStore(arena, vectors, index, dimension);
+    }
+
+    /**
+     * Opens a binary embeddings file written by BinaryEmbeddingsConverter by memory-mapping it into a segment.
+     *
+     * <p><b>Time Complexity:</b> O(n), where n is the number of words in the file; the vectors themselves
+     * are not read until they are used.</p>
+     *
+     * @param filePath the path to the binary embeddings file
+     * @return the store backed by the mapped file
+     * @throws IOException if the file cannot be read or is not a binary embeddings file
+     */
+    public static OffHeapEmbeddingsStore open(String filePath) throws IOException {
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            MemorySegment file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            BinaryEmbeddingsStore.Contents contents = BinaryEmbeddingsStore.read(file, filePath);
+            // A word written more than once keeps the vector of its first row, as in BinaryEmbeddingsStore
+            WordTable index = WordTable.ofRows(contents.words());
+            return new OffHeapEmbeddingsStore(arena, contents.vectors(), index, contents.dimension());
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Retrieves the embedding vector for a word, copied out of the segment and widened to double precision.
+     *
+     * <p><b>Time Complexity:</b> O(d), where d is the vector dimension.</p>
+     *
+     * @param word the word to look up
+     * @return a new array holding the embedding vector, or null if the word is not in the vocabulary
+     */
+    @Override
+    public double[] get(String word) {
+        int id = index.id(word);
+        if (id < 0) {
+            return null;
+        }
+        long base = (long) id * dimension;
+        double[] vector = new double[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = vectors.getAtIndex(FLOAT, base + i);
+        }
+        return vector;
+    }
+
+    /**
+     * Reads the vector of a word straight from the segment and scales it to unit length, without the
+     * intermediate double array of get.
+     *
+     * <p><b>Time Complexity:</b> O(d), where d is the vector dimension.</p>
+     *
+     * @param word the word to look up
+     * @return a new unit-length vector, or null if the word is not in the vocabulary or has a zero vector
+     */
+    @Override
+    public float[] unitVector(String word) {
+        int id = index.id(word);
+        if (id < 0) {
+            return null;
+        }
+        return BinaryEmbeddingsStore.unitVector(vectors, id, dimension);
+    }
+
+    @Override
+    public boolean contains(String word) {
+        return index.id(word) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    @Override
+    public Collection<String> words() {
+        String[] words = new String[index.size()];
+        for (int id = 0; id < words.length; id++) {
+            words[id] = index.word(id);
+        }
+        return Collections.unmodifiableList(Arrays.asList(words));
+    }
+
+    @Override
+    public WordTable wordTable() {
+        return index;
+    }
+
+    /**
+     * Returns the number of off-heap bytes holding the vectors.
+     *
+     * @return the size of the vector segment in bytes
+     */
+    public long vectorBytes() {
+        return vectors.byteSize();
+    }
+
+    /**
+     * Releases the off-heap memory, or unmaps the file.
+     *
+     * <p><b>Time Complexity:</b> O(1)</p>
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+}
@@ -0,0 +1,125 @@
+package ie.atu.sw;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The OffsetLineReader class reads UTF-8 lines from a file starting at a byte offset, and reports the byte
+ * offset just past the last line it returned, so that a run can record how far through its input it got
+ * and a later run can start again from there. Lines end with {@code \n}, {@code \r\n} or {@code \r}, as for
+ * BufferedReader.
+ *
+ * <p>When reading a file that may still be growing, the reader can be told to hold back a final line with no
+ * line terminator, as it may be only partly written; such a line is left for the next reader.</p>
+ */
+public class OffsetLineReader implements AutoCloseable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final boolean holdUnterminated;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private byte[] line = new byte[256];
+    private long offset;
+    private boolean finished;
+
+    /**
+     * Opens a file for reading from a byte offset, which must be the start of a line.
+     *
+     * @param file             the file to read
+     * @param offset           the byte offset to start at
+     * @param holdUnterminated true to leave a final line with no line terminator unread
+     * @throws IOException if the file cannot be opened
+     */
+    public OffsetLineReader(Path file, long offset, boolean holdUnterminated) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.holdUnterminated = holdUnterminated;
+        this.offset = offset;
+        try {
+            channel.position(offset);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the next line.
+     *
+     * <p><b>Time Complexity:</b> O(l), where l is the length of the line in bytes.</p>
+     *
+     * @return the line without its terminator, or null at the end of the file
+     * @throws IOException if the file cannot be read
+     */
+    public String readLine() throws IOException {
+        if (finished) {
+            return null;
+        }
+        int length = 0;
+        long consumed = 0;
+        while (true) {
+            if (position == limit && !fill()) {
+                finished = true;
+                if (consumed == 0 || holdUnterminated) {
+                    return null;
+                }
+                offset += consumed;
+                return new String(line, 0, length, StandardCharsets.UTF_8);
+            }
+
+            byte b = buffer[position++];
+            consumed++;
+            if (b == '\n' || b == '\r') {
+                if (b == '\r') {
+                    if (position == limit && !fill()) {
+                        if (holdUnterminated) {
+                            finished = true; // The \n of a \r\n may not have been written yet
+                            return null;
+                        }
+                    } else if (buffer[position] == '\n') {
+                        position++;
+                        consumed++;
+                    }
+                }
+                offset += consumed;
+                return new String(line, 0, length, StandardCharsets.UTF_8);
+            }
+
+            if (length == line.length) {
+                line = Arrays.copyOf(line, length * 2);
+            }
+            line[length++] = b;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        int read;
+        do {
+            read = channel.read(ByteBuffer.wrap(buffer));
+        } while (read == 0);
+        position = 0;
+        limit = Math.max(0, read);
+        return read > 0;
+    }
+
+    /**
+     * Returns the byte offset just past the terminator of the last line returned, which is where a new
+     * reader would continue from.
+     *
+     * @return the byte offset
+     */
+    public long offset() {
+        return offset;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,487 @@
+package ie.atu.sw;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.function.Supplier;
+
+/**
+ * The ParallelEmbeddingsLoader class loads a GloVe CSV embeddings file on every available core. The file is
+ * split into byte ranges whose boundaries are moved forward to the next line break, and each range is
+ * memory-mapped and parsed by its own subtask with a hand-rolled number parser instead of String.split and
+ * Double.parseDouble.
+ *
+ * <p>Loading takes two parallel passes: the first counts the lines in each range, so the word array and the
+ * float block of the resulting ArrayEmbeddingsStore can be allocated at their final size; the second parses
+ * each range straight into its own rows of that block.</p>
+ *
+ * <p>A load can be restricted to the words in a WordTable, such as the distinct words of the input text plus
+ * the Google 1000 words. Both passes then check each line's word straight from the mapped bytes and skip the
+ * rest of the line unless the word is wanted, so the numbers of every other word are never parsed and the store
+ * holds only the wanted rows.</p>
+ *
+ * <p>A load can also quantize each row to int8 codes as soon as it is parsed, so the float block is never
+ * allocated and memory holds only the codes.</p>
+ */
+public class ParallelEmbeddingsLoader {
+    private static final long MAX_RANGE_BYTES = 1L << 30;
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final int parallelism;
+
+    /**
+     * Constructs a loader that uses one range per available processor.
+     */
+    public ParallelEmbeddingsLoader() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a loader that splits the file into the given number of ranges.
+     *
+     * @param parallelism the number of ranges parsed concurrently
+     */
+    public ParallelEmbeddingsLoader(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Receives the rows parsed by one subtask, each as the row index and its values. The values array is reused
+     * for the next row.
+     */
+    @FunctionalInterface
+    private interface RowSink {
+        void row(int row, float[] values);
+    }
+
+    /**
+     * A line-aligned byte range of the file and the first row it fills.
+     */
+    private static final class Range {
+        private final long start;
+        private final long end;
+        private int lines;
+        private int firstRow;
+
+        Range(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Loads a GloVe CSV embeddings file.
+     *
+     * <p><b>Time Complexity:</b> O(n * d / p), where n is the number of words, d is the vector dimension and
+     * p is the number of ranges parsed in parallel.</p>
+     *
+     * @param filePath the path to the GloVe CSV embeddings file
+     * @return the loaded embeddings
+     * @throws IOException          if the file cannot be read or a line is malformed
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public ArrayEmbeddingsStore load(String filePath) throws IOException, InterruptedException {
+        return load(filePath, null);
+    }
+
+    /**
+     * Loads only the vectors of the given words from a GloVe CSV embeddings file. Words in the table that are
+     * not in the file are left out of the store.
+     *
+     * <p><b>Time Complexity:</b> O(b / p + k * d / p), where b is the size of the file in bytes, k is the number
+     * of words kept, d is the vector dimension and p is the number of ranges parsed in parallel.</p>
+     *
+     * @param filePath the path to the GloVe CSV embeddings file
+     * @param keep     the words to load, or null to load every word
+     * @return the loaded embeddings
+     * @throws IOException          if the file cannot be read or a kept line is malformed
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public ArrayEmbeddingsStore load(String filePath, WordTable keep) throws IOException, InterruptedException {
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            Range[] ranges = split(channel);
+            int dimension = ranges.length == 0 ? 0 : readDimension(channel);
+            int rows = countRows(channel, ranges, dimension, keep, filePath);
+
+            String[] words = new String[rows];
+            float[] vectors = new float[rows * dimension];
+            parseRanges(channel, ranges, dimension, words, keep,
+                    () -> (row, values) -> System.arraycopy(values, 0, vectors, row * dimension, dimension));
+            return new ArrayEmbeddingsStore(words, vectors, dimension);
+        }
+    }
+
+    /**
+     * Loads a GloVe CSV embeddings file, or only the given words of it, quantizing each row to int8 codes as
+     * soon as it is parsed. The rows are quantized exactly as QuantizedEmbeddingsStore.quantize would quantize
+     * the store returned by load, but the float block is never allocated.
+     *
+     * <p><b>Time Complexity:</b> O(b / p + k * d / p), where b is the size of the file in bytes, k is the number
+     * of words loaded, d is the vector dimension and p is the number of ranges parsed in parallel.</p>
+     *
+     * @param filePath the path to the GloVe CSV embeddings file
+     * @param keep     the words to load, or null to load every word
+     * @return the quantized embeddings
+     * @throws IOException          if the file cannot be read or a loaded line is malformed
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public QuantizedEmbeddingsStore loadQuantized(String filePath, WordTable keep) throws IOException, InterruptedException {
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            Range[] ranges = split(channel);
+            int dimension = ranges.length == 0 ? 0 : readDimension(channel);
+            int rows = countRows(channel, ranges, dimension, keep, filePath);
+
+            String[] words = new String[rows];
+            byte[] codes = new byte[rows * dimension];
+            float[] scales = new float[rows];
+            parseRanges(channel, ranges, dimension, words, keep, () -> {
+                double[] widened = new double[dimension];
+                return (row, values) -> {
+                    for (int i = 0; i < dimension; i++) {
+                        widened[i] = values[i];
+                    }
+                    scales[row] = QuantizedEmbeddingsStore.quantize(widened, codes, row * dimension);
+                };
+            });
+            return new QuantizedEmbeddingsStore(words, codes, scales, dimension);
+        }
+    }
+
+    /**
+     * Counts the lines, or the kept lines, of every range in parallel and assigns each range its first row.
+     * Returns the total number of rows.
+     */
+    private int countRows(FileChannel channel, Range[] ranges, int dimension, WordTable keep, String filePath)
+            throws IOException, InterruptedException {
+        try (var scope = StructuredTaskScope.open()) {
+            for (Range range : ranges) {
+                scope.fork(() -> {
+                    range.lines = keep == null ? countLines(map(channel, range)) : countKeptLines(map(channel, range), keep);
+                    return null;
+                });
+            }
+            scope.join();
+        }
+
+        int rows = 0;
+        for (Range range : ranges) {
+            range.firstRow = rows;
+            rows += range.lines;
+        }
+        if ((long) rows * dimension > Integer.MAX_VALUE) {
+            throw new IOException("Embeddings file has too many values to hold in one array: " + filePath);
+        }
+        return rows;
+    }
+
+    /**
+     * Parses every range in parallel, each into its own sink.
+     */
+    private void parseRanges(FileChannel channel, Range[] ranges, int dimension, String[] words, WordTable keep,
+                             Supplier<RowSink> sinks) throws InterruptedException {
+        try (var scope = StructuredTaskScope.open()) {
+            for (Range range : ranges) {
+                scope.fork(() -> {
+                    parseRange(map(channel, range), range.firstRow, dimension, words, sinks.get(), keep);
+                    return null;
+                });
+            }
+            scope.join();
+        }
+    }
+
+    /**
+     * Splits the file into ranges of roughly equal size, each starting just after a line break.
+     */
+    private Range[] split(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size == 0) {
+            return new Range[0];
+        }
+        int count = (int) Math.max(parallelism, (size + MAX_RANGE_BYTES - 1) / MAX_RANGE_BYTES);
+        long target = Math.max(1, size / count);
+
+        List<Range> ranges = new ArrayList<>(count);
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(size, start + target);
+            end = nextLineStart(channel, end);
+            ranges.add(new Range(start, end));
+            start = end;
+        }
+        return ranges.toArray(new Range[0]);
+    }
+
+    /**
+     * Returns the offset of the first line that starts at or after a position, or the size of the file.
+     *
+     * <p><b>Time Complexity:</b> O(l), where l is the length of the line the position falls in.</p>
+     *
+     * @param channel  the file
+     * @param position the byte offset to search from
+     * @return the byte offset just after the first line break at or after position - 1
+     * @throws IOException if the file cannot be read
+     */
+    static long nextLineStart(FileChannel channel, long position) throws IOException {
+        long size = channel.size();
+        if (position >= size) {
+            return size;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        // The byte before position may itself be a line break, in which case position already starts a line
+        long scan = position - 1;
+        while (scan < size) {
+            buffer.clear();
+            int read = channel.read(buffer, scan);
+            if (read <= 0) {
+                return size;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return scan + i + 1;
+                }
+            }
+            scan += read;
+        }
+        return size;
+    }
+
+    private static int readDimension(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        int read = channel.read(buffer, 0);
+        int commas = 0;
+        for (int i = 0; i < read; i++) {
+            byte b = buffer.get(i);
+            if (b == '\n') {
+                break;
+            }
+            if (b == ',') {
+                commas++;
+            }
+        }
+        return commas;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, Range range) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, range.start, range.end - range.start);
+    }
+
+    private static int countLines(MappedByteBuffer buffer) {
+        int lines = 0;
+        boolean content = false;
+        int limit = buffer.limit();
+        for (int i = 0; i < limit; i++) {
+            byte b = buffer.get(i);
+            if (b == '\n') {
+                if (content) {
+                    lines++;
+                }
+                content = false;
+            } else if (b != '\r') {
+                content = true;
+            }
+        }
+        return content ? lines + 1 : lines;
+    }
+
+    /**
+     * Counts the lines of a range whose word is in the table.
+     */
+    private static int countKeptLines(MappedByteBuffer buffer, WordTable keep) {
+        char[] chars = new char[64];
+        int lines = 0;
+        int limit = buffer.limit();
+        int position = 0;
+        while (position < limit) {
+            int comma = position;
+            while (comma < limit && buffer.get(comma) != ',' && buffer.get(comma) != '\n') {
+                comma++;
+            }
+            int lineEnd = comma;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int contentEnd = lineEnd > position && buffer.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+            if (contentEnd > position && isKept(buffer, position, Math.min(comma, contentEnd), keep, chars)) {
+                lines++;
+            }
+            position = lineEnd + 1;
+        }
+        return lines;
+    }
+
+    /**
+     * Checks whether the word in a range of bytes is in the table. ASCII words, which all cleaned words are,
+     * are looked up through a char buffer without allocating.
+     */
+    private static boolean isKept(MappedByteBuffer buffer, int start, int end, WordTable keep, char[] chars) {
+        int length = end - start;
+        if (length <= chars.length) {
+            boolean ascii = true;
+            for (int i = 0; i < length && ascii; i++) {
+                byte b = buffer.get(start + i);
+                ascii = b >= 0;
+                chars[i] = (char) b;
+            }
+            if (ascii) {
+                return keep.id(chars, 0, length) >= 0;
+            }
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(start, bytes);
+        return keep.id(new String(bytes, StandardCharsets.UTF_8)) >= 0;
+    }
+
+    /**
+     * Parses every line of a range, or every line whose word is in the table, into consecutive rows starting
+     * at firstRow, handing each row's values to the sink.
+     */
+    private static void parseRange(MappedByteBuffer buffer, int firstRow, int dimension,
+                                   String[] words, RowSink sink, WordTable keep) throws IOException {
+        float[] values = new float[dimension];
+        byte[] wordBytes = new byte[64];
+        char[] chars = new char[64];
+        int limit = buffer.limit();
+        int position = 0;
+        int row = firstRow;
+
+        while (position < limit) {
+            int lineEnd = position;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int contentEnd = lineEnd > position && buffer.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+            if (contentEnd == position) {
+                position = lineEnd + 1;
+                continue;
+            }
+
+            int comma = position;
+            while (comma < contentEnd && buffer.get(comma) != ',') {
+                comma++;
+            }
+            if (keep != null && !isKept(buffer, position, comma, keep, chars)) {
+                position = lineEnd + 1;
+                continue;
+            }
+            int wordLength = comma - position;
+            if (wordBytes.length < wordLength) {
+                wordBytes = new byte[wordLength];
+            }
+            buffer.get(position, wordBytes, 0, wordLength);
+            words[row] = new String(wordBytes, 0, wordLength, StandardCharsets.UTF_8);
+
+            int field = comma + 1;
+            for (int i = 0; i < dimension; i++) {
+                if (field > contentEnd) {
+                    throw new IOException("Expected " + dimension + " values for word: " + words[row]);
+                }
+                int fieldEnd = field;
+                while (fieldEnd < contentEnd && buffer.get(fieldEnd) != ',') {
+                    fieldEnd++;
+                }
+                values[i] = parseFloat(buffer, field, fieldEnd);
+                field = fieldEnd + 1;
+            }
+            if (field <= contentEnd) {
+                throw new IOException("Expected " + dimension + " values for word: " + words[row]);
+            }
+            sink.row(row, values);
+
+            row++;
+            position = lineEnd + 1;
+        }
+    }
+
+    /**
+     * Parses a decimal number such as {@code -0.41800} or {@code 1.2e-05} from a range of bytes. Up to
+     * eighteen significant digits are accumulated exactly in a long and scaled by a power of ten.
+     *
+     * <p><b>Time Complexity:</b> O(l), where l is the length of the number.</p>
+     */
+    static float parseFloat(MappedByteBuffer buffer, int start, int end) throws IOException {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean seenDigit = false;
+        boolean fraction = false;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                seenDigit = true;
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                    if (fraction) {
+                        exponent--;
+                    }
+                } else if (!fraction) {
+                    exponent++;
+                }
+            } else if (b == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+        }
+
+        if (i < end && (buffer.get(i) == 'e' || buffer.get(i) == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+                negativeExponent = buffer.get(i) == '-';
+                i++;
+            }
+            int value = 0;
+            boolean exponentDigit = false;
+            for (; i < end && buffer.get(i) >= '0' && buffer.get(i) <= '9'; i++) {
+                value = Math.min(value * 10 + (buffer.get(i) - '0'), 10_000);
+                exponentDigit = true;
+            }
+            if (!exponentDigit) {
+                seenDigit = false;
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+
+        if (!seenDigit || i != end) {
+            byte[] text = new byte[end - start];
+            buffer.get(start, text);
+            throw new IOException("Malformed number: " + new String(text, StandardCharsets.UTF_8));
+        }
+
+        double value = mantissa;
+        if (exponent < 0) {
+            value = -exponent < POWERS_OF_TEN.length ? value / POWERS_OF_TEN[-exponent] : value * Math.pow(10, exponent);
+        } else if (exponent > 0) {
+            value = exponent < POWERS_OF_TEN.length ? value * POWERS_OF_TEN[exponent] : value * Math.pow(10, exponent);
+        }
+        return (float) (negative ? -value : value);
+    }
+}
@@ -0,0 +1,354 @@
+package ie.atu.sw;
+
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The ProjectedCandidateIndex class is an exact nearest-neighbour search that scores most candidates on a few
+ * dimensions instead of all of them. At build time the principal components of the candidate rows are found,
+ * and each row is split into its coordinates on the first k components and the length of what is left over.
+ * For a query split the same way, the Cauchy-Schwarz inequality gives an upper bound on its similarity with
+ * every row from k products and one multiply:
+ *
+ * <pre>    q . r  &lt;=  (P q) . (P r) + |q - P'P q| * |r - P'P r|</pre>
+ *
+ * <p>The row with the highest bound is scored exactly first, and every other row is then scored at full
+ * dimension only if its bound, plus a margin for rounding, could still reach the best exact score so far.
+ * A row that is skipped cannot be the most similar or tie with it, so the result is the same row that
+ * CandidateMatrix.nearest returns, ties included. The bound is tight when the candidates' energy is
+ * concentrated in a few directions, as in trained embeddings; for isotropic vectors few rows are skipped and
+ * the projection is pure overhead. So once the first queries show that most rows survive the bound, the
+ * index stops pruning and scans the matrix directly.</p>
+ */
+public class ProjectedCandidateIndex implements NearestNeighbourIndex {
+    public static final int DEFAULT_COMPONENTS = 16;
+    private static final int POWER_ITERATIONS = 40;
+    private static final long SEED = 42;
+    private static final int SAMPLE_QUERIES = 256;
+    private static final double MAX_RERANKED = 0.5;
+
+    private final CandidateMatrix matrix;
+    private final int dimension;
+    private final int components;
+    private final float[] basis;
+    private final float[] projected;
+    private final float[] residuals;
+    private final float margin;
+    private final double residualSlack;
+    private final double capturedEnergy;
+    private final SimilarityCalculator similarityCalculator = new SimilarityCalculator();
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder reranked = new LongAdder();
+    private volatile boolean bypassed;
+
+    /**
+     * Builds the index with the default number of components.
+     *
+     * @param matrix the candidate matrix, which is used for the exact scores
+     */
+    public ProjectedCandidateIndex(CandidateMatrix matrix) {
+        this(matrix, DEFAULT_COMPONENTS);
+    }
+
+    /**
+     * Builds the index over a candidate matrix, projecting onto its leading principal components.
+     *
+     * <p><b>Time Complexity:</b> O(n * d^2 + i * d^2 * k), where n is the number of rows, d is the dimension,
+     * k is the number of components and i is the number of power iterations.</p>
+     *
+     * @param matrix     the candidate matrix, which is used for the exact scores
+     * @param components the number of dimensions to project onto, at most the dimension of the matrix
+     */
+    public ProjectedCandidateIndex(CandidateMatrix matrix, int components) {
+        if (components < 1) {
+            throw new IllegalArgumentException("Components must be at least 1");
+        }
+        this.matrix = matrix;
+        this.dimension = matrix.dimension();
+        this.components = Math.min(components, dimension);
+        double[] principal = principalComponents(matrix, this.components);
+        this.basis = new float[principal.length];
+        for (int i = 0; i < principal.length; i++) {
+            basis[i] = (float) principal[i];
+        }
+
+        // Coordinates are stored component by component, so a query's bounds are built with one pass per component
+        int rows = matrix.size();
+        this.projected = new float[this.components * rows];
+        this.residuals = new float[rows];
+        double[] coordinates = new double[this.components];
+        double projectedEnergy = 0;
+        double totalEnergy = 0;
+        for (int row = 0; row < rows; row++) {
+            float[] vector = matrix.row(row);
+            residuals[row] = (float) split(vector, coordinates);
+            for (int c = 0; c < this.components; c++) {
+                projected[c * rows + row] = (float) coordinates[c];
+                projectedEnergy += coordinates[c] * coordinates[c];
+            }
+            totalEnergy += squaredLength(vector);
+        }
+        this.capturedEnergy = totalEnergy == 0 ? 0 : projectedEnergy / totalEnergy;
+        // Covers the rounding of the float dot products behind the exact score and the query's coordinates,
+        // of the float basis, which is orthonormal only to float precision, and of the bound itself
+        this.margin = (2 * dimension + 2 * this.components + 16) * 0x1p-22f;
+        // Covers the rounding of the query's squared length and coordinates, and the float basis, in the
+        // difference of squared lengths, so the residual is never underestimated
+        this.residualSlack = (this.components + 1) * (dimension + 8) * 0x1p-22;
+    }
+
+    private static double squaredLength(float[] vector) {
+        double sum = 0;
+        for (float value : vector) {
+            sum += (double) value * value;
+        }
+        return sum;
+    }
+
+    /**
+     * Finds the leading eigenvectors of the rows' second-moment matrix by subspace iteration, returned as k
+     * orthonormal rows of length d. The moments are taken about the origin, not the mean, as the bound is on
+     * dot products. Any orthonormal basis keeps the search exact; a better one only prunes more.
+     */
+    private static double[] principalComponents(CandidateMatrix matrix, int k) {
+        int d = matrix.dimension();
+        double[] moments = new double[d * d];
+        for (int row = 0; row < matrix.size(); row++) {
+            float[] vector = matrix.row(row);
+            for (int i = 0; i < d; i++) {
+                double vi = vector[i];
+                for (int j = i; j < d; j++) {
+                    moments[i * d + j] += vi * vector[j];
+                }
+            }
+        }
+        for (int i = 0; i < d; i++) {
+            for (int j = 0; j < i; j++) {
+                moments[i * d + j] = moments[j * d + i];
+            }
+        }
+
+        Random random = new Random(SEED);
+        double[] basis = new double[k * d];
+        for (int i = 0; i < basis.length; i++) {
+            basis[i] = random.nextGaussian();
+        }
+        orthonormalize(basis, k, d);
+        double[] next = new double[k * d];
+        for (int iteration = 0; iteration < POWER_ITERATIONS; iteration++) {
+            for (int c = 0; c < k; c++) {
+                for (int i = 0; i < d; i++) {
+                    double sum = 0;
+                    for (int j = 0; j < d; j++) {
+                        sum += moments[i * d + j] * basis[c * d + j];
+                    }
+                    next[c * d + i] = sum;
+                }
+            }
+            System.arraycopy(next, 0, basis, 0, basis.length);
+            orthonormalize(basis, k, d);
+        }
+        return basis;
+    }
+
+    /**
+     * Orthonormalizes the rows of a k by d matrix in place with modified Gram-Schmidt. A row that vanishes is
+     * replaced by a unit vector along an axis that keeps the rows independent.
+     */
+    private static void orthonormalize(double[] rows, int k, int d) {
+        for (int c = 0; c < k; c++) {
+            for (int attempt = 0; ; attempt++) {
+                for (int previous = 0; previous < c; previous++) {
+                    double dot = 0;
+                    for (int i = 0; i < d; i++) {
+                        dot += rows[c * d + i] * rows[previous * d + i];
+                    }
+                    for (int i = 0; i < d; i++) {
+                        rows[c * d + i] -= dot * rows[previous * d + i];
+                    }
+                }
+                double norm = 0;
+                for (int i = 0; i < d; i++) {
+                    norm += rows[c * d + i] * rows[c * d + i];
+                }
+                if (norm > 1e-20) {
+                    double scale = 1 / Math.sqrt(norm);
+                    for (int i = 0; i < d; i++) {
+                        rows[c * d + i] *= scale;
+                    }
+                    break;
+                }
+                if (attempt == d) {
+                    throw new IllegalStateException("Cannot find " + k + " independent directions in " + d + " dimensions");
+                }
+                for (int i = 0; i < d; i++) {
+                    rows[c * d + i] = i == (c + attempt) % d ? 1 : 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits a row into its coordinates on the basis, in double precision, and returns the length of the
+     * residual, computed explicitly rather than from the difference of squared lengths, which would lose
+     * precision when the residual is small.
+     */
+    private double split(float[] vector, double[] coordinates) {
+        double[] residual = new double[dimension];
+        for (int i = 0; i < dimension; i++) {
+            residual[i] = vector[i];
+        }
+        for (int c = 0; c < components; c++) {
+            double sum = 0;
+            for (int i = 0; i < dimension; i++) {
+                sum += (double) basis[c * dimension + i] * vector[i];
+            }
+            coordinates[c] = sum;
+            for (int i = 0; i < dimension; i++) {
+                residual[i] -= sum * basis[c * dimension + i];
+            }
+        }
+        double length = 0;
+        for (double value : residual) {
+            length += value * value;
+        }
+        return Math.sqrt(length);
+    }
+
+    /**
+     * Finds the row most similar to a normalized query vector, scoring at full dimension only the rows whose
+     * bound can still reach the best score found.
+     *
+     * <p><b>Time Complexity:</b> O(k * d + n * k + s * d), where n is the number of rows, k is the number of
+     * components, d is the dimension and s is the number of rows that survive the bound; O(n * d) at worst.</p>
+     *
+     * @param query the unit-length query vector
+     * @return the same row as CandidateMatrix.nearest
+     */
+    @Override
+    public int nearest(float[] query) {
+        int rows = matrix.size();
+        if (query.length != dimension || rows == 0) {
+            return -1;
+        }
+        if (bypassed) {
+            return matrix.nearest(query);
+        }
+
+        // The query's coordinates, and the length of its residual from Pythagoras, widened by the slack
+        float[] coordinates = new float[components];
+        double projectedLength = 0;
+        for (int c = 0; c < components; c++) {
+            float coordinate = similarityCalculator.dot(basis, c * dimension, query, 0, dimension);
+            coordinates[c] = coordinate;
+            projectedLength += (double) coordinate * coordinate;
+        }
+        double queryLength = similarityCalculator.dot(query, 0, query, 0, dimension);
+        float queryResidual = (float) Math.sqrt(Math.max(0, queryLength - projectedLength) + residualSlack);
+
+        float[] bounds = new float[rows];
+        for (int row = 0; row < rows; row++) {
+            bounds[row] = queryResidual * residuals[row] + margin;
+        }
+        for (int c = 0; c < components; c++) {
+            float coordinate = coordinates[c];
+            int offset = c * rows;
+            for (int row = 0; row < rows; row++) {
+                bounds[row] += coordinate * projected[offset + row];
+            }
+        }
+        int seed = 0;
+        for (int row = 1; row < rows; row++) {
+            if (bounds[row] > bounds[seed]) {
+                seed = row;
+            }
+        }
+
+        // As in CandidateMatrix.nearest, a row must score above -1, and the first of equal scores wins
+        int best = -1;
+        float highestSimilarity = -1.0f;
+        float seedSimilarity = matrix.score(query, seed);
+        if (seedSimilarity > highestSimilarity) {
+            highestSimilarity = seedSimilarity;
+            best = seed;
+        }
+        int scored = 1;
+        for (int row = 0; row < rows; row++) {
+            if (row == seed || bounds[row] < highestSimilarity) {
+                continue;
+            }
+            float similarity = matrix.score(query, row);
+            scored++;
+            if (similarity > highestSimilarity || similarity == highestSimilarity && best >= 0 && row < best) {
+                highestSimilarity = similarity;
+                best = row;
+            }
+        }
+        queries.increment();
+        reranked.add(scored);
+        if (queries.sum() >= SAMPLE_QUERIES && rerankedFraction() > MAX_RERANKED) {
+            bypassed = true;
+        }
+        return best;
+    }
+
+    @Override
+    public String word(int id) {
+        return matrix.word(id);
+    }
+
+    @Override
+    public int size() {
+        return matrix.size();
+    }
+
+    /**
+     * Returns the number of dimensions the candidates are projected onto.
+     *
+     * @return the number of components
+     */
+    public int components() {
+        return components;
+    }
+
+    /**
+     * Returns the share of the candidates' squared length that lies in the projected dimensions.
+     *
+     * @return a fraction between 0 and 1
+     */
+    public double capturedEnergy() {
+        return capturedEnergy;
+    }
+
+    /**
+     * Returns the average share of the rows scored at full dimension per query pruned so far.
+     *
+     * @return a fraction between 0 and 1, or 0 before the first query
+     */
+    public double rerankedFraction() {
+        long count = queries.sum();
+        return count == 0 || matrix.size() == 0 ? 0 : (double) reranked.sum() / count / matrix.size();
+    }
+
+    /**
+     * Returns whether pruning has been given up because too many rows survived the bound.
+     *
+     * @return true if queries are answered by a full scan of the matrix
+     */
+    public boolean isBypassed() {
+        return bypassed;
+    }
+
+    /**
+     * Describes the projection and how much it has pruned, for reporting.
+     *
+     * @return the projected dimensions, the energy they capture and the share of rows re-ranked so far
+     */
+    @Override
+    public String toString() {
+        return String.format("projected index: %d of %d dimensions capture %.1f%% of the candidates' energy; "
+                        + "%.1f%% of candidates re-ranked over %d queries", components, dimension,
+                capturedEnergy * 100, rerankedFraction() * 100, queries.sum())
+                + (bypassed ? "; pruning bypassed as too few rows were skipped" : "");
+    }
+}
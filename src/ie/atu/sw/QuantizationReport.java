@@ -0,0 +1,76 @@
+package ie.atu.sw;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The QuantizationReport class measures how often the replacement chosen with quantized embeddings differs
+ * from the one chosen with full-precision embeddings, over a sample of words from the vocabulary, and how
+ * much memory the quantized vectors save.
+ */
+public class QuantizationReport {
+    /**
+     * The outcome of a comparison.
+     *
+     * @param words          the number of words compared
+     * @param differing      the number of words whose replacement differs
+     * @param fullBytes      the size of the vectors held as doubles, as by GloVEEmbeddingsLoader
+     * @param quantizedBytes the size of the quantized vectors, scales and norms
+     */
+    public record Result(int words, int differing, long fullBytes, long quantizedBytes) {
+        /**
+         * Returns the fraction of compared words whose replacement differs.
+         *
+         * @return the disagreement rate, between 0 and 1
+         */
+        public double differingRate() {
+            return words == 0 ? 0 : (double) differing / words;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d of %d replacements differ (%.2f%%), vectors %.1f MB as doubles, %.1f MB quantized (%.1fx smaller)",
+                    differing, words, differingRate() * 100, fullBytes / 1e6, quantizedBytes / 1e6,
+                    (double) fullBytes / Math.max(1, quantizedBytes));
+        }
+    }
+
+    /**
+     * Compares the replacements found by two maps for a random sample of words that would be replaced,
+     * that is words in the vocabulary that are not Google 1000 words.
+     *
+     * <p><b>Time Complexity:</b> O(n + s * m * d), where n is the vocabulary size, s is the sample size, m is
+     * the number of Google 1000 words and d is the vector dimension.</p>
+     *
+     * @param full      the map over the full-precision embeddings
+     * @param quantized the map over the quantized embeddings
+     * @param count     the number of words to sample
+     * @param seed      the seed of the random sample
+     * @return the number of differing replacements and the memory used by each store
+     */
+    public static Result compare(MapGoogle1000 full, MapGoogle1000 quantized, int count, long seed) {
+        List<String> words = new ArrayList<>(full.getEmbeddings().words());
+        Collections.shuffle(words, new Random(seed));
+
+        int compared = 0;
+        int differing = 0;
+        for (int i = 0; i < words.size() && compared < count; i++) {
+            String word = words.get(i);
+            String expected = full.findMostSimilarWord(word);
+            if (expected.equals(word)) {
+                continue; // Google 1000 words and zero vectors are never replaced
+            }
+            if (!expected.equals(quantized.findMostSimilarWord(word))) {
+                differing++;
+            }
+            compared++;
+        }
+
+        EmbeddingsStore store = full.getEmbeddings();
+        long fullBytes = (long) store.size() * store.dimension() * Double.BYTES;
+        long quantizedBytes = quantized.getEmbeddings() instanceof QuantizedEmbeddingsStore q ? q.vectorBytes() : fullBytes;
+        return new Result(compared, differing, fullBytes, quantizedBytes);
+    }
+}
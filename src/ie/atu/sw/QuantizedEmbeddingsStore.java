@@ -0,0 +1,207 @@
+package ie.atu.sw;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * The QuantizedEmbeddingsStore class holds every vector as signed 8-bit integers with one scale factor per
+ * vector, so a value takes one byte instead of the eight of a double. Each vector is scaled so that its
+ * largest magnitude maps to 127, and {@code code * scale} recovers the original value to within half a
+ * quantization step.
+ *
+ * <p>Cosine similarity can be computed on the codes directly: the scale factors cancel out, so it is the
+ * integer dot product of the two code vectors divided by the product of their code norms, as
+ * QuantizedCandidateIndex does.</p>
+ */
+public class QuantizedEmbeddingsStore implements EmbeddingsStore {
+    static final int LEVELS = 127;
+
+    private final String[] words;
+    private final WordTable index;
+    private final byte[] codes;
+    private final float[] scales;
+    private final int dimension;
+
+    /**
+     * Constructs a store over already quantized rows, such as those of ParallelEmbeddingsLoader.loadQuantized.
+     *
+     * <p><b>Time Complexity:</b> O(n), where n is the number of words, which are indexed.</p>
+     *
+     * @param words     the words, in row order
+     * @param codes     the row-major codes, one row of dimension codes per word
+     * @param scales    the scale factor of each row
+     * @param dimension the vector dimension
+     */
+    QuantizedEmbeddingsStore(String[] words, byte[] codes, float[] scales, int dimension) {
+        this.words = words;
+        this.codes = codes;
+        this.scales = scales;
+        this.dimension = dimension;
+        this.index = WordTable.ofRows(words);
+    }
+
+    /**
+     * Quantizes every vector of a store.
+     *
+     * <p><b>Time Complexity:</b> O(n * d), where n is the number of words and d is the vector dimension.</p>
+     *
+     * @param source the full-precision embeddings
+     * @return the quantized embeddings
+     */
+    public static QuantizedEmbeddingsStore quantize(EmbeddingsStore source) {
+        String[] words = source.words().toArray(new String[0]);
+        int dimension = source.dimension();
+        byte[] codes = new byte[words.length * dimension];
+        float[] scales = new float[words.length];
+
+        for (int row = 0; row < words.length; row++) {
+            double[] vector = source.get(words[row]);
+            scales[row] = quantize(vector, codes, row * dimension);
+        }
+        return new QuantizedEmbeddingsStore(words, codes, scales, dimension);
+    }
+
+    /**
+     * Quantizes one vector into a range of a code array.
+     *
+     * @param vector the vector to quantize
+     * @param codes  the array receiving the codes
+     * @param offset the index in the code array where the vector starts
+     * @return the scale factor that maps the codes back to the vector's values
+     */
+    static float quantize(double[] vector, byte[] codes, int offset) {
+        double maxAbs = 0;
+        for (double value : vector) {
+            maxAbs = Math.max(maxAbs, Math.abs(value));
+        }
+        if (maxAbs == 0) {
+            return 0;
+        }
+        double scale = maxAbs / LEVELS;
+        for (int i = 0; i < vector.length; i++) {
+            codes[offset + i] = (byte) Math.round(vector[i] / scale);
+        }
+        return (float) scale;
+    }
+
+    /**
+     * Quantizes one single-precision vector into a range of a code array.
+     *
+     * @param vector the vector to quantize
+     * @param codes  the array receiving the codes
+     * @param offset the index in the code array where the vector starts
+     * @return the scale factor that maps the codes back to the vector's values
+     */
+    static float quantize(float[] vector, byte[] codes, int offset) {
+        float maxAbs = 0;
+        for (float value : vector) {
+            maxAbs = Math.max(maxAbs, Math.abs(value));
+        }
+        if (maxAbs == 0) {
+            return 0;
+        }
+        float scale = maxAbs / LEVELS;
+        for (int i = 0; i < vector.length; i++) {
+            codes[offset + i] = (byte) Math.round(vector[i] / scale);
+        }
+        return scale;
+    }
+
+    /**
+     * Computes the inverse of the Euclidean norm of a code vector, or 0 for a zero vector.
+     */
+    static float inverseNorm(byte[] codes, int offset, int length) {
+        long sumOfSquares = 0;
+        for (int i = 0; i < length; i++) {
+            sumOfSquares += codes[offset + i] * codes[offset + i];
+        }
+        return sumOfSquares == 0 ? 0 : (float) (1.0 / Math.sqrt(sumOfSquares));
+    }
+
+    /**
+     * Retrieves the embedding vector for a word, dequantized to double precision.
+     *
+     * <p><b>Time Complexity:</b> O(d), where d is the vector dimension.</p>
+     *
+     * @param word the word to look up
+     * @return a new array holding the approximate embedding vector, or null if the word is not in the vocabulary
+     */
+    @Override
+    public double[] get(String word) {
+        int row = index.id(word);
+        if (row < 0) {
+            return null;
+        }
+        double[] vector = new double[dimension];
+        int base = row * dimension;
+        float scale = scales[row];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = codes[base + i] * scale;
+        }
+        return vector;
+    }
+
+    /**
+     * Returns the row of a word, whose codes start at {@code row * dimension} in the code array.
+     *
+     * @param word the word to look up
+     * @return the row of the word, or -1 if the word is not in the vocabulary
+     */
+    int row(String word) {
+        return index.id(word);
+    }
+
+    /**
+     * Returns the row-major code array, which is shared rather than copied and must not be modified.
+     *
+     * @return the codes of every row
+     */
+    byte[] codes() {
+        return codes;
+    }
+
+    /**
+     * Returns the scale factor of a row, which is 0 only for a zero vector.
+     *
+     * @param row the row returned by row
+     * @return the scale factor of the row
+     */
+    float scale(int row) {
+        return scales[row];
+    }
+
+    @Override
+    public boolean contains(String word) {
+        return index.id(word) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return words.length;
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    @Override
+    public Collection<String> words() {
+        return Collections.unmodifiableList(Arrays.asList(words));
+    }
+
+    @Override
+    public WordTable wordTable() {
+        return index;
+    }
+
+    /**
+     * Returns the number of bytes used by the codes and scale factors, excluding the word index.
+     *
+     * @return the size of the vector data in bytes
+     */
+    public long vectorBytes() {
+        return codes.length + (long) scales.length * Float.BYTES;
+    }
+}
@@ -0,0 +1,180 @@
+package ie.atu.sw;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The ReplacementTable class holds the precomputed mapping from every word in the embeddings
+ * vocabulary to its most similar Google 1000 word. It extends FileProcessor so a table persisted
+ * by a previous run can be loaded back in the same way as the other input files.
+ *
+ * <p>A persisted table starts with a header line holding the fingerprint of the embeddings and
+ * Google 1000 files it was built from, followed by one {@code word,replacement} pair per line. The header
+ * starts with a comma, so it cannot be mistaken for a pair, whose word is never empty; words such as
+ * {@code #tag} are ordinary pairs.</p>
+ */
+public class ReplacementTable extends FileProcessor {
+    /**
+     * The start of the fingerprint header line, which no {@code word,replacement} line can begin with.
+     */
+    static final String HEADER_PREFIX = ",fingerprint=";
+
+    private final ConcurrentHashMap<String, String> replacements;
+    private volatile String fingerprint;
+
+    /**
+     * Constructs an empty ReplacementTable.
+     */
+    public ReplacementTable() {
+        this(16);
+    }
+
+    /**
+     * Constructs an empty ReplacementTable presized for the expected number of words.
+     *
+     * @param expectedSize the expected number of words in the table
+     */
+    public ReplacementTable(int expectedSize) {
+        this.replacements = new ConcurrentHashMap<>(Math.max(16, expectedSize * 4 / 3 + 1));
+    }
+
+    /**
+     * Builds a fingerprint identifying the embeddings and Google 1000 files a table was computed from, and
+     * the index it was computed with, as an approximate index may choose other replacements than the exact
+     * one. The fingerprint is made up of each file's name, size and last modified time and the index
+     * configuration.
+     *
+     * <p><b>Time Complexity:</b> O(1), only the file metadata is read.</p>
+     *
+     * @param embeddingsFile  the path to the embeddings file
+     * @param google1000File  the path to the Google 1000 file
+     * @param index           the configuration of the index
+     * @return the fingerprint of the two files and the index
+     */
+    public static String fingerprint(String embeddingsFile, String google1000File, String index) {
+        return describe(new File(embeddingsFile)) + "|" + describe(new File(google1000File)) + "|index=" + index;
+    }
+
+    private static String describe(File file) {
+        return file.getName() + ":" + file.length() + ":" + file.lastModified();
+    }
+
+    /**
+     * Adds a word and its replacement to the table.
+     *
+     * <p><b>Time Complexity:</b> O(1), a single insertion into the map.</p>
+     *
+     * @param word        the word from the embeddings vocabulary
+     * @param replacement the most similar Google 1000 word
+     */
+    public void put(String word, String replacement) {
+        replacements.put(word, replacement);
+    }
+
+    /**
+     * Looks up the replacement for a word.
+     *
+     * <p><b>Time Complexity:</b> O(1), a single hash lookup.</p>
+     *
+     * @param word the word to look up
+     * @return the replacement, or null if the word is not in the table
+     */
+    public String get(String word) {
+        return replacements.get(word);
+    }
+
+    /**
+     * Returns the number of words in the table.
+     *
+     * @return the size of the table
+     */
+    public int size() {
+        return replacements.size();
+    }
+
+    /**
+     * Returns the fingerprint of the source files this table was built from.
+     *
+     * @return the fingerprint, or null if none has been recorded
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Records the fingerprint of the source files this table was built from.
+     *
+     * @param fingerprint the fingerprint of the source files
+     */
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Writes the table to a file, starting with its fingerprint header. The table is written to a temporary
+     * file beside it that is then moved into place, so worker processes that save the same table at once
+     * never leave, or read, a partly written file.
+     *
+     * <p><b>Time Complexity:</b> O(n), where n is the number of words in the table.</p>
+     *
+     * @param filePath the path to the file where the table will be written
+     * @throws IOException if an I/O error occurs while writing to the file
+     */
+    public void save(String filePath) throws IOException {
+        List<String> lines = new ArrayList<>(replacements.size() + 1);
+        lines.add(HEADER_PREFIX + (fingerprint == null ? "" : fingerprint));
+        for (var entry : replacements.entrySet()) {
+            lines.add(entry.getKey() + "," + entry.getValue());
+        }
+        Path target = Path.of(filePath).toAbsolutePath();
+        Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            writeFileLines(temporary.toString(), lines);
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Processes a single line of a persisted table, either the fingerprint header or a
+     * {@code word,replacement} pair. Lines are processed concurrently in no fixed order, which is safe as the
+     * header is the only line that can start with a comma.
+     *
+     * <p><b>Time Complexity:</b> O(n), where n is the length of the line.</p>
+     *
+     * @param line The line of text to process
+     * @throws Exception if an error occurs during processing
+     */
+    @Override
+    void process(String line) throws Exception {
+        if (line.startsWith(HEADER_PREFIX)) {
+            fingerprint = line.substring(HEADER_PREFIX.length());
+            return;
+        }
+        int comma = line.indexOf(',');
+        if (comma > 0) {
+            replacements.put(line.substring(0, comma), line.substring(comma + 1));
+        }
+    }
+
+    /**
+     * Loads a persisted table.
+     *
+     * <p><b>Time Complexity:</b> O(n), where n is the number of lines in the file.</p>
+     *
+     * @param textFile   the path to the persisted table
+     * @param outputFile the path to the output file (not used in this implementation)
+     * @throws Throwable if any other error occurs during processing
+     */
+    @Override
+    void processFile(String textFile, String outputFile) throws Throwable {
+        loadAndProcessLines(textFile);
+    }
+}
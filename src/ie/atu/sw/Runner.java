@@ -1,26 +1,79 @@
 package ie.atu.sw;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.StructuredTaskScope;
 
 /**
  * The Runner class is the main entry point for the Text Simplifier application.
  * It provides a menu-driven interface for users to specify input files, process text, and generate output.
  */
 public class Runner {
+    private static final String BINARY_EMBEDDINGS_EXTENSION = ".bin";
+    private static final int RECALL_SAMPLE_SIZE = 1000;
     private static final Scanner scanner = new Scanner(System.in);
     private static String embeddingsFile;
     private static String google1000File;
     private static String textFile;
     private static String outputFile;
+    private static boolean precomputeReplacements;
+    private static String replacementTableFile;
+    private static boolean approximateIndex;
+    private static int hnswM = HnswIndex.DEFAULT_M;
+    private static int hnswEfConstruction = HnswIndex.DEFAULT_EF_CONSTRUCTION;
+    private static int hnswEfSearch = HnswIndex.DEFAULT_EF_SEARCH;
+    private static boolean projectedIndex;
+    private static int projectedComponents = ProjectedCandidateIndex.DEFAULT_COMPONENTS;
+    private static int cacheCapacity;
+    private static WordCache.EvictionPolicy cachePolicy = WordCache.EvictionPolicy.LRU;
+    private static String cacheDumpFile;
+    private static boolean streaming;
+    private static int windowSize = TextProcessor.DEFAULT_WINDOW_SIZE;
+    private static int maxInFlight = TextProcessor.DEFAULT_MAX_IN_FLIGHT;
+    private static ChunkSizer.Mode chunkMode = ChunkSizer.Mode.AUTO;
+    private static int chunkLimit = ChunkSizer.INITIAL_AUTO_LINES;
+    private static boolean parallelParser;
+    private static boolean quantizedEmbeddings;
+    private static boolean quantizationReport;
+    private static boolean offHeapEmbeddings;
+    private static boolean twoPhase;
+    private static boolean checkpointing;
+    private static boolean incremental;
+    private static boolean writeBehind;
+    private static boolean lazyEmbeddings;
+    private static int shards = 1;
+    private static String snapshotFile;
+    private static int serverPort = SimplificationServer.DEFAULT_PORT;
+    private static String serverDirectory = ".";
 
     /**
-     * The main method that starts the application.
+     * The main method that starts the application. With no arguments the interactive menu is shown; with
+     * {@code --batch} the files given on the command line are simplified without prompting, with
+     * {@code --coordinate} one file is simplified in several worker processes, and {@code --worker} is how
+     * the coordinator starts each of those processes. A command line run that fails prints the error and
+     * exits with status 1.
      *
      * @param args the command line arguments
      */
     public static void main(String[] args) {
+        if (args.length > 0) {
+            int status;
+            try {
+                status = runCommandLine(args);
+            } catch (Throwable e) {
+                System.err.println("An error occurred.");
+                e.printStackTrace();
+                status = 1;
+            }
+            System.exit(status);
+        }
         try {
             menu();
         } catch (Throwable e) {
@@ -30,6 +83,278 @@ public class Runner {
         }
     }
 
+    /**
+     * Runs one of the command line modes:
+     * {@code --batch <directory|glob|@manifest> <output directory>},
+     * {@code --coordinate <input file> <output file> [--shards <n>]} or
+     * {@code --worker <input file> <start> <end> <output file>}, each with {@code --embeddings <file>
+     * --google <file>} and followed by any of {@code --workers <n>}, {@code --two-phase}, {@code --streaming},
+     * {@code --parallel-parser}, {@code --off-heap}, {@code --quantized}, {@code --quantization-report},
+     * {@code --checkpoint},
+     * {@code --incremental}, {@code --write-behind}, {@code --lazy}, {@code --projected [<components>]},
+     * {@code --hnsw [<m> <efConstruction> <efSearch>]}, {@code --cache <capacity> <lru|fifo>},
+     * {@code --chunk <auto|lines|characters> [<limit>]}, {@code --precompute [<table file>]} and
+     * {@code --snapshot <file>}.
+     *
+     * <p><b>Time Complexity:</b> O(n + m + t), where n is the number of words in the Google 1000 list, m is
+     * the number of words in the embeddings file and t is the total number of words in the input files</p>
+     *
+     * @param args the command line arguments
+     * @return the process exit status: 0 on success, 1 if any file or shard failed, 2 for invalid arguments
+     * @throws Throwable If an error occurs while loading the model
+     */
+    private static int runCommandLine(String[] args) throws Throwable {
+        String inputs = null;
+        String outputDir = null;
+        String coordinateInput = null;
+        String coordinateOutput = null;
+        String[] worker = null;
+        int workers = Runtime.getRuntime().availableProcessors();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--batch" -> {
+                        inputs = args[++i];
+                        outputDir = args[++i];
+                    }
+                    case "--coordinate" -> {
+                        coordinateInput = args[++i];
+                        coordinateOutput = args[++i];
+                    }
+                    case "--worker" -> {
+                        worker = new String[]{args[++i], args[++i], args[++i], args[++i]};
+                        Long.parseLong(worker[1]);
+                        Long.parseLong(worker[2]);
+                    }
+                    case "--embeddings" -> embeddingsFile = args[++i];
+                    case "--google" -> google1000File = args[++i];
+                    case "--workers" -> workers = Integer.parseInt(args[++i]);
+                    case "--shards" -> shards = Integer.parseInt(args[++i]);
+                    case "--two-phase" -> twoPhase = true;
+                    case "--streaming" -> streaming = true;
+                    case "--parallel-parser" -> parallelParser = true;
+                    case "--off-heap" -> offHeapEmbeddings = true;
+                    case "--quantized" -> quantizedEmbeddings = true;
+                    case "--quantization-report" -> {
+                        quantizedEmbeddings = true;
+                        quantizationReport = true;
+                    }
+                    case "--checkpoint" -> checkpointing = true;
+                    case "--incremental" -> incremental = true;
+                    case "--write-behind" -> writeBehind = true;
+                    case "--lazy" -> lazyEmbeddings = true;
+                    case "--snapshot" -> snapshotFile = args[++i];
+                    case "--projected" -> {
+                        projectedIndex = true;
+                        if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                            projectedComponents = Integer.parseInt(args[++i]);
+                        }
+                    }
+                    case "--hnsw" -> {
+                        approximateIndex = true;
+                        if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                            hnswM = Integer.parseInt(args[++i]);
+                            hnswEfConstruction = Integer.parseInt(args[++i]);
+                            hnswEfSearch = Integer.parseInt(args[++i]);
+                        }
+                    }
+                    case "--cache" -> {
+                        cacheCapacity = Integer.parseInt(args[++i]);
+                        cachePolicy = WordCache.EvictionPolicy.valueOf(args[++i].toUpperCase());
+                    }
+                    case "--chunk" -> {
+                        chunkMode = ChunkSizer.Mode.valueOf(args[++i].toUpperCase());
+                        if (chunkMode != ChunkSizer.Mode.AUTO) {
+                            chunkLimit = Integer.parseInt(args[++i]);
+                        }
+                    }
+                    case "--precompute" -> {
+                        precomputeReplacements = true;
+                        if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                            replacementTableFile = args[++i];
+                        }
+                    }
+                    default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+                }
+            }
+            int modes = (inputs != null ? 1 : 0) + (coordinateInput != null ? 1 : 0) + (worker != null ? 1 : 0);
+            if (modes != 1 || embeddingsFile == null || google1000File == null || workers < 1 || shards < 1
+                    || projectedComponents < 1 || hnswM < 2 || hnswEfConstruction < 1 || hnswEfSearch < 1
+                    || cacheCapacity < 0 || chunkLimit < 1) {
+                throw new IllegalArgumentException("Expected one of --batch, --coordinate or --worker, with --embeddings and --google");
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.err.println("Invalid arguments: " + (e instanceof ArrayIndexOutOfBoundsException
+                    ? "missing value after " + args[args.length - 1] : e.getMessage()));
+            System.err.println("Usage: --batch <directory|glob|@manifest> <output directory> --embeddings <file>"
+                    + " --google <file> [--workers <n>] [--two-phase] [--streaming] [--parallel-parser]"
+                    + " [--off-heap] [--quantized] [--quantization-report] [--checkpoint] [--incremental]"
+                    + " [--write-behind] [--lazy] [--projected [<components>]]"
+                    + " [--hnsw [<m> <efConstruction> <efSearch>]] [--cache <capacity> <lru|fifo>]"
+                    + " [--chunk <auto|lines|characters> [<limit>]] [--precompute [<table file>]] [--snapshot <file>]");
+            System.err.println("   or: --coordinate <input file> <output file> [--shards <n>] --embeddings <file>"
+                    + " --google <file> [options as above]");
+            return 2;
+        }
+
+        if (coordinateInput != null) {
+            return runSharded(coordinateInput, coordinateOutput) ? 0 : 1;
+        } else if (worker != null) {
+            return runWorker(Path.of(worker[0]), Long.parseLong(worker[1]), Long.parseLong(worker[2]), Path.of(worker[3]));
+        }
+        return runBatch(inputs, outputDir, workers);
+    }
+
+    /**
+     * Simplifies every file of a batch with one loaded model. The timing of each file and the aggregate
+     * throughput are printed at the end.
+     *
+     * <p><b>Time Complexity:</b> O(n + m + t), where n is the number of words in the Google 1000 list, m is
+     * the number of words in the embeddings file and t is the total number of words in the input files</p>
+     *
+     * @param inputs    a directory, a glob, or {@code @} followed by the path of a manifest file
+     * @param outputDir the directory the outputs are written to
+     * @param workers   the maximum number of files processed at once
+     * @return 0 if every file was simplified, 1 if any failed
+     * @throws Throwable If an error occurs while loading the model
+     */
+    private static int runBatch(String inputs, String outputDir, int workers) throws Throwable {
+        List<BatchProcessor.Job> jobs = BatchProcessor.jobs(inputs, Path.of(outputDir));
+        StartupPipeline startup = new StartupPipeline();
+        List<String> inputFiles = jobs.stream().map(job -> job.input().toString()).toList();
+        MapGoogle1000 mapGoogle1000 = loadModel(() -> scanTokens(inputFiles), startup);
+        startup.report();
+        BatchProcessor batchProcessor = new BatchProcessor(createTextProcessor(mapGoogle1000), workers);
+
+        long start = System.nanoTime();
+        List<BatchProcessor.Result> results = batchProcessor.process(jobs);
+        long totalNanos = System.nanoTime() - start;
+        closeModel(mapGoogle1000);
+
+        results.forEach(System.out::println);
+        System.out.println(Metrics.get().summary());
+        System.out.println(BatchProcessor.summary(results, totalNanos));
+        return results.stream().allMatch(result -> result.failure() == null) ? 0 : 1;
+    }
+
+    /**
+     * Simplifies one file in as many worker processes as there are shards, each loading its own model with
+     * the current options, and merges their output in order. The throughput of each shard and of the whole
+     * run are printed as the workers finish. A cache dump file is refused, as the workers' caches cannot be
+     * merged into one dump.
+     *
+     * <p><b>Time Complexity:</b> O(m * s + t / s), where m is the cost of loading the model, s is the number
+     * of shards and t is the number of words in the file</p>
+     *
+     * @param input  the input text file
+     * @param output the output file
+     * @return true if every shard was simplified and merged, false if a worker failed
+     */
+    private static boolean runSharded(String input, String output) {
+        if (cacheDumpFile != null) {
+            System.err.println("A cache dump file cannot be shared by worker processes; clear it or use one process.");
+            return false;
+        }
+        System.out.println("Processing the text file: " + input + " in " + shards + " worker processes");
+        long start = System.nanoTime();
+        try {
+            List<ShardCoordinator.Result> results = new ShardCoordinator(workerArguments())
+                    .run(Path.of(input), Path.of(output), shards);
+            System.out.println(ShardCoordinator.summary(results, Files.size(Path.of(input)), System.nanoTime() - start));
+            System.out.println("Successfully processed text file and wrote output to: " + output);
+            return true;
+        } catch (Throwable e) {
+            System.err.println("Sharded run failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Returns the command line options that give a worker process the same model and processing options
+     * as this one: the embeddings and how they are loaded, the index and its parameters, the replacement
+     * table, the cache and the chunking.
+     */
+    private static List<String> workerArguments() {
+        List<String> arguments = new ArrayList<>(List.of("--embeddings", embeddingsFile, "--google", google1000File));
+        if (twoPhase) {
+            arguments.add("--two-phase");
+        }
+        if (parallelParser) {
+            arguments.add("--parallel-parser");
+        }
+        if (offHeapEmbeddings) {
+            arguments.add("--off-heap");
+        }
+        if (quantizedEmbeddings) {
+            arguments.add("--quantized");
+        }
+        if (writeBehind) {
+            arguments.add("--write-behind");
+        }
+        if (lazyEmbeddings) {
+            arguments.add("--lazy");
+        }
+        if (projectedIndex) {
+            arguments.add("--projected");
+            arguments.add(Integer.toString(projectedComponents));
+        }
+        if (approximateIndex) {
+            arguments.addAll(List.of("--hnsw", Integer.toString(hnswM), Integer.toString(hnswEfConstruction),
+                    Integer.toString(hnswEfSearch)));
+        }
+        if (precomputeReplacements) {
+            arguments.add("--precompute");
+            if (replacementTableFile != null) {
+                arguments.add(replacementTableFile);
+            }
+        }
+        if (cacheCapacity > 0) {
+            arguments.addAll(List.of("--cache", Integer.toString(cacheCapacity), cachePolicy.name().toLowerCase()));
+        }
+        arguments.addAll(List.of("--chunk", chunkMode.name().toLowerCase()));
+        if (chunkMode != ChunkSizer.Mode.AUTO) {
+            arguments.add(Integer.toString(chunkLimit));
+        }
+        if (snapshotFile != null) {
+            arguments.add("--snapshot");
+            arguments.add(snapshotFile);
+        }
+        return arguments;
+    }
+
+    /**
+     * Runs as the worker of a sharded run: loads the model, simplifies the lines in one byte range of the
+     * input into a part file, and reports the line count and timings to the coordinator as the last line of
+     * its output. With lazy loading, only the words of the worker's own range are scanned.
+     *
+     * <p><b>Time Complexity:</b> O(n + m + t), where n is the number of words in the Google 1000 list, m is
+     * the number of words in the embeddings file and t is the number of words in the range</p>
+     *
+     * @param input  the input text file
+     * @param start  the byte offset of the first line of the range
+     * @param end    the byte offset just past the range
+     * @param output the part file to write
+     * @return 0 if the range was simplified, 1 if it failed
+     */
+    private static int runWorker(Path input, long start, long end, Path output) {
+        try {
+            long loadStart = System.nanoTime();
+            MapGoogle1000 mapGoogle1000 = loadModel(() -> scanTokens(input, start, end), new StartupPipeline());
+            long loadNanos = System.nanoTime() - loadStart;
+
+            long processStart = System.nanoTime();
+            long lines = createTextProcessor(mapGoogle1000).processRange(input, start, end, output);
+            long processNanos = System.nanoTime() - processStart;
+            closeModel(mapGoogle1000);
+
+            System.out.println(ShardCoordinator.status(lines, end - start, loadNanos, processNanos));
+            return 0;
+        } catch (Throwable e) {
+            System.out.println("Worker failed: " + e);
+            return 1;
+        }
+    }
+
     /**
      * Displays the main menu and handles user input.
      *
@@ -54,11 +379,13 @@ public class Runner {
             System.out.println("(3) Specify Text File");
             System.out.println("(4) Specify an Output File");
             System.out.println("(5) Execute, Analyse and Report");
+            System.out.println("(6) Configure Options");
+            System.out.println("(7) Start Simplification Server");
             System.out.println("(0) Quit");
 
             //Output a menu of options and solicit text from the user
             System.out.print(ConsoleColour.BLACK_BOLD_BRIGHT);
-            System.out.print("Select Option [1-5]>");
+            System.out.print("Select Option [1-7]>");
             String option = scanner.nextLine();
 
             switch (option) {
@@ -77,6 +404,12 @@ public class Runner {
                 case "5":
                     executeAnalyseReport();
                     break;
+                case "6":
+                    optionsMenu();
+                    break;
+                case "7":
+                    startServer();
+                    break;
                 case "0":
                     System.out.println("Exiting...");
                     running = false;
@@ -87,6 +420,310 @@ public class Runner {
         }
     }
 
+    /**
+     * Displays the options menu and handles user input until the user returns to the main menu.
+     *
+     * <p><b>Time Complexity:</b> O(1), each iteration of the menu performs constant time operations</p>
+     */
+    private static void optionsMenu() {
+        boolean running = true;
+        while (running) {
+            System.out.println(ConsoleColour.WHITE);
+            System.out.println("(1) Toggle Precomputed Replacements [" + onOff(precomputeReplacements) + "]");
+            System.out.println("(2) Specify Replacement Table File [" + valueOrNone(replacementTableFile) + "]");
+            System.out.println("(3) Convert Embeddings File to Binary");
+            System.out.println("(4) Select Nearest-Neighbour Index [" + describeIndex() + "]");
+            System.out.println("(5) Configure Replacement Cache [" + describeCache() + "]");
+            System.out.println("(6) Configure Streaming [" + describeStreaming() + "]");
+            System.out.println("(7) Configure Chunking [" + ChunkSizer.of(chunkMode, chunkLimit) + "]");
+            System.out.println("(8) Toggle Parallel Embeddings Parser [" + onOff(parallelParser) + "]");
+            System.out.println("(9) Configure Int8 Quantized Embeddings [" + describeQuantization() + "]");
+            System.out.println("(10) Toggle Off-Heap Embeddings [" + onOff(offHeapEmbeddings) + "]");
+            System.out.println("(11) Toggle Two-Phase Distinct-Word Resolution [" + onOff(twoPhase) + "]");
+            System.out.println("(12) Configure Checkpointing [" + describeCheckpointing() + "]");
+            System.out.println("(13) Toggle Write-Behind Output [" + onOff(writeBehind) + "]");
+            System.out.println("(14) Toggle Input-Driven Lazy Loading [" + onOff(lazyEmbeddings) + "]");
+            System.out.println("(15) Set Worker Processes [" + (shards > 1 ? shards + " shards" : "off") + "]");
+            System.out.println("(16) Specify Model Snapshot File [" + valueOrNone(snapshotFile) + "]");
+            System.out.println("(0) Back");
+
+            System.out.print(ConsoleColour.BLACK_BOLD_BRIGHT);
+            System.out.print("Select Option [0-16]>");
+            String option = scanner.nextLine();
+
+            switch (option) {
+                case "1":
+                    precomputeReplacements = !precomputeReplacements;
+                    break;
+                case "2":
+                    System.out.print("Enter the path to the replacement table file: ");
+                    replacementTableFile = scanner.nextLine();
+                    break;
+                case "3":
+                    convertEmbeddingsFile();
+                    break;
+                case "4":
+                    selectIndex();
+                    break;
+                case "5":
+                    configureCache();
+                    break;
+                case "6":
+                    configureStreaming();
+                    break;
+                case "7":
+                    configureChunking();
+                    break;
+                case "8":
+                    parallelParser = !parallelParser;
+                    break;
+                case "9":
+                    configureQuantization();
+                    break;
+                case "10":
+                    offHeapEmbeddings = !offHeapEmbeddings;
+                    break;
+                case "11":
+                    twoPhase = !twoPhase;
+                    break;
+                case "12":
+                    configureCheckpointing();
+                    break;
+                case "13":
+                    writeBehind = !writeBehind;
+                    break;
+                case "14":
+                    lazyEmbeddings = !lazyEmbeddings;
+                    break;
+                case "15":
+                    shards = Math.max(1, readInt("Enter the number of worker processes, 1 for none", shards));
+                    break;
+                case "16":
+                    System.out.print("Enter the path to the model snapshot file, or leave blank for none: ");
+                    String snapshot = scanner.nextLine().trim();
+                    snapshotFile = snapshot.isEmpty() ? null : snapshot;
+                    break;
+                case "0":
+                    running = false;
+                    break;
+                default:
+                    System.out.println("Invalid option. Please try again.");
+            }
+        }
+    }
+
+    /**
+     * Converts the specified GloVe CSV embeddings file into the binary format and selects the binary file
+     * as the embeddings file for later executions.
+     *
+     * <p><b>Time Complexity:</b> O(m), where m is the number of values in the embeddings file</p>
+     */
+    private static void convertEmbeddingsFile() {
+        if (embeddingsFile == null) {
+            System.out.println("Please specify the embeddings file before converting.");
+            return;
+        }
+        System.out.print("Enter the path to the binary embeddings file (" + BINARY_EMBEDDINGS_EXTENSION + "): ");
+        String binaryFile = scanner.nextLine();
+        try {
+            new BinaryEmbeddingsConverter().convert(embeddingsFile, binaryFile);
+            embeddingsFile = binaryFile;
+            System.out.println("Converted embeddings, now using: " + binaryFile);
+        } catch (Throwable e) {
+            System.err.println("Failed to convert embeddings. Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Prompts the user to choose between the exact, the approximate (HNSW) and the projected nearest-neighbour
+     * index, and for the approximate and projected indexes, their parameters.
+     *
+     * <p><b>Time Complexity:</b> O(1), this method performs constant time operations of reading user input</p>
+     */
+    private static void selectIndex() {
+        System.out.print("Enter the index type (exact/hnsw/projected): ");
+        String type = scanner.nextLine().trim().toLowerCase();
+        switch (type) {
+            case "exact":
+                approximateIndex = false;
+                projectedIndex = false;
+                break;
+            case "hnsw":
+                approximateIndex = true;
+                projectedIndex = false;
+                hnswM = Math.max(2, readInt("Enter M, the links per word", hnswM));
+                hnswEfConstruction = Math.max(1, readInt("Enter efConstruction, the build beam width", hnswEfConstruction));
+                hnswEfSearch = Math.max(1, readInt("Enter efSearch, the query beam width", hnswEfSearch));
+                break;
+            case "projected":
+                approximateIndex = false;
+                projectedIndex = true;
+                projectedComponents = Math.max(1, readInt("Enter the number of projected dimensions", projectedComponents));
+                break;
+            default:
+                System.out.println("Invalid index type. Please try again.");
+        }
+    }
+
+    /**
+     * Prompts the user for the replacement cache capacity (0 disables it), eviction policy and dump file.
+     *
+     * <p><b>Time Complexity:</b> O(1), this method performs constant time operations of reading user input</p>
+     */
+    private static void configureCache() {
+        cacheCapacity = Math.max(0, readInt("Enter the cache capacity, 0 to disable", cacheCapacity));
+        if (cacheCapacity == 0) {
+            return;
+        }
+        System.out.print("Enter the eviction policy (lru/fifo) [" + cachePolicy.name().toLowerCase() + "]: ");
+        String policy = scanner.nextLine().trim();
+        if (!policy.isEmpty()) {
+            try {
+                cachePolicy = WordCache.EvictionPolicy.valueOf(policy.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.out.println("Invalid policy, keeping " + cachePolicy + ".");
+            }
+        }
+        System.out.print("Enter the cache dump file to warm from and save to, blank for none: ");
+        String dumpFile = scanner.nextLine().trim();
+        cacheDumpFile = dumpFile.isEmpty() ? null : dumpFile;
+    }
+
+    private static String describeCache() {
+        return cacheCapacity == 0 ? "off"
+                : cacheCapacity + " " + cachePolicy + (cacheDumpFile == null ? "" : " dump=" + cacheDumpFile);
+    }
+
+    /**
+     * Prompts the user to enable streaming mode and for its window size and in-flight limit.
+     *
+     * <p><b>Time Complexity:</b> O(1), this method performs constant time operations of reading user input</p>
+     */
+    private static void configureStreaming() {
+        System.out.print("Stream the text file in bounded windows? (y/n): ");
+        streaming = scanner.nextLine().trim().equalsIgnoreCase("y");
+        if (streaming) {
+            windowSize = Math.max(1, readInt("Enter the lines per window", windowSize));
+            maxInFlight = Math.max(1, readInt("Enter the maximum windows in flight", maxInFlight));
+        }
+    }
+
+    /**
+     * Prompts the user for how lines are grouped into subtasks: automatically, by line count or by characters.
+     *
+     * <p><b>Time Complexity:</b> O(1), this method performs constant time operations of reading user input</p>
+     */
+    private static void configureChunking() {
+        System.out.print("Enter the chunking mode (auto/lines/characters): ");
+        String mode = scanner.nextLine().trim().toUpperCase();
+        try {
+            chunkMode = ChunkSizer.Mode.valueOf(mode);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Invalid mode, keeping " + chunkMode.name().toLowerCase() + ".");
+            return;
+        }
+        if (chunkMode != ChunkSizer.Mode.AUTO) {
+            chunkLimit = Math.max(1, readInt("Enter the " + mode.toLowerCase() + " per chunk", chunkLimit));
+        }
+    }
+
+    /**
+     * Prompts the user for whether runs are checkpointed so they can be resumed, and whether a completed run's
+     * checkpoint is kept so the next run only processes the lines appended to the input since.
+     *
+     * <p><b>Time Complexity:</b> O(1), this method performs constant time operations of reading user input</p>
+     */
+    private static void configureCheckpointing() {
+        System.out.print("Enter the checkpointing mode (off/resume/incremental): ");
+        switch (scanner.nextLine().trim().toLowerCase()) {
+            case "off" -> {
+                checkpointing = false;
+                incremental = false;
+            }
+            case "resume" -> {
+                checkpointing = true;
+                incremental = false;
+            }
+            case "incremental" -> {
+                checkpointing = true;
+                incremental = true;
+            }
+            default -> System.out.println("Invalid mode, keeping " + describeCheckpointing() + ".");
+        }
+    }
+
+    /**
+     * Prompts the user for whether the embeddings are quantized to 8-bit codes, and whether the full-precision
+     * embeddings are also kept while loading to report how often the quantized replacements differ.
+     *
+     * <p><b>Time Complexity:</b> O(1), this method performs constant time operations of reading user input</p>
+     */
+    private static void configureQuantization() {
+        System.out.print("Enter the quantization mode (off/on/report): ");
+        switch (scanner.nextLine().trim().toLowerCase()) {
+            case "off" -> {
+                quantizedEmbeddings = false;
+                quantizationReport = false;
+            }
+            case "on" -> {
+                quantizedEmbeddings = true;
+                quantizationReport = false;
+            }
+            case "report" -> {
+                quantizedEmbeddings = true;
+                quantizationReport = true;
+            }
+            default -> System.out.println("Invalid mode, keeping " + describeQuantization() + ".");
+        }
+    }
+
+    private static String describeQuantization() {
+        return quantizationReport ? "report" : quantizedEmbeddings ? "on" : "off";
+    }
+
+    private static String describeCheckpointing() {
+        return incremental ? "incremental" : checkpointing ? "resume" : "off";
+    }
+
+    private static String describeStreaming() {
+        return streaming ? "window=" + windowSize + " inFlight=" + maxInFlight : "off";
+    }
+
+    private static int readInt(String prompt, int current) {
+        System.out.print(prompt + " [" + current + "]: ");
+        String value = scanner.nextLine().trim();
+        try {
+            return value.isEmpty() ? current : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid number, keeping " + current + ".");
+            return current;
+        }
+    }
+
+    private static String describeIndex() {
+        if (approximateIndex) {
+            return "hnsw m=" + hnswM + " efConstruction=" + hnswEfConstruction + " efSearch=" + hnswEfSearch;
+        }
+        return projectedIndex ? "projected components=" + projectedComponents : "exact";
+    }
+
+    /**
+     * Describes everything that decides which replacement a search returns, the index and whether the
+     * embeddings are quantized, so that replacements saved by one run are only reused by a run that would
+     * find the same ones.
+     */
+    private static String describeSearch() {
+        return quantizedEmbeddings ? describeIndex() + " quantized" : describeIndex();
+    }
+
+    private static String onOff(boolean enabled) {
+        return enabled ? "on" : "off";
+    }
+
+    private static String valueOrNone(String value) {
+        return value == null ? "none" : value;
+    }
+
     /**
      * Prompts the user to specify the embeddings file path.
      *
@@ -141,28 +778,489 @@ public class Runner {
             return;
         }
 
-        try {
-            // Load Google 1000 words
-            GoogleWordsLoader googleWordsLoader = new GoogleWordsLoader();
-            googleWordsLoader.processFile(google1000File, null);
-            ConcurrentSkipListSet<String> google1000Set = googleWordsLoader.getGoogle1000Set();
-
-            // Load GloVe embeddings
-            GloVEEmbeddingsLoader gloveEmbeddingsLoader = new GloVEEmbeddingsLoader();
-            gloveEmbeddingsLoader.processFile(embeddingsFile, null);
-            ConcurrentHashMap<String, double[]> embeddingsMap = gloveEmbeddingsLoader.getEmbeddings();
+        if (shards > 1) {
+            runSharded(textFile, outputFile);
+            return;
+        }
 
-            // Initialize Google 1000 embeddings
-            MapGoogle1000 mapGoogle1000 = new MapGoogle1000(google1000Set, embeddingsMap);
-            mapGoogle1000.initializeGoogle1000Embeddings();
+        try {
+            Metrics.get().reset();
+            StartupPipeline startup = new StartupPipeline();
+            // The input text is read alongside the model when it is to be processed in memory
+            boolean preload = !streaming && !checkpointing && !incremental;
+            MapGoogle1000 mapGoogle1000;
+            List<String> lines = null;
+            try (var scope = StructuredTaskScope.open()) {
+                var modelTask = scope.fork(StartupPipeline.task(() -> loadModel(() -> scanTokens(List.of(textFile)), startup)));
+                var inputTask = preload
+                        ? scope.fork(startup.stage("input text", () -> Files.readAllLines(Path.of(textFile))))
+                        : null;
+                scope.join();
+                mapGoogle1000 = modelTask.get();
+                if (inputTask != null) {
+                    lines = inputTask.get();
+                }
+            }
+            startup.report();
 
             // Process the text file
-            FileProcessor textProcessor = new TextProcessor(mapGoogle1000);
-            textProcessor.processFile(textFile, outputFile);
+            TextProcessor textProcessor = createTextProcessor(mapGoogle1000);
+            textProcessor.processFile(textFile, outputFile, lines);
+            closeModel(mapGoogle1000);
 
+            System.out.println(Metrics.get().summary());
             System.out.println("Text processing completed successfully.");
         } catch (Throwable e) {
             System.err.println("An error occurred.");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Loads the model once and serves simplification requests over HTTP on the loopback interface until the
+     * user presses Enter, printing the token the requests must carry. The model is closed only once the
+     * requests in progress have finished.
+     *
+     * <p><b>Time Complexity:</b> O(n + m) to load the model, where n is the number of words in the Google 1000
+     * list and m is the number of words in the embeddings file; each request then costs only its own text</p>
+     *
+     * @throws Throwable If an error occurs while reading user input
+     */
+    private static void startServer() throws Throwable {
+        if (embeddingsFile == null || google1000File == null) {
+            System.out.println("Please specify the embeddings and Google 1000 files before starting the server.");
+            return;
+        }
+        serverPort = readInt("Enter the port to listen on", serverPort);
+        System.out.print("Enter the directory the server may read and write files in [" + serverDirectory + "]: ");
+        String directory = scanner.nextLine().trim();
+        if (!directory.isEmpty()) {
+            serverDirectory = directory;
+        }
+
+        try {
+            Metrics.get().reset();
+            StartupPipeline startup = new StartupPipeline();
+            MapGoogle1000 mapGoogle1000 = loadModel(null, startup);
+            try {
+                startup.report();
+                try (SimplificationServer server = new SimplificationServer(createTextProcessor(mapGoogle1000),
+                        serverPort, Path.of(serverDirectory))) {
+                    server.start();
+                    String base = "http://localhost:" + server.getPort();
+                    System.out.println("Serving " + base + "/word?word=..., " + base + "/text and "
+                            + base + "/file?input=...&output=... (files in " + server.getDirectory() + ")");
+                    System.out.println("Send the header: Authorization: Bearer " + server.getToken());
+                    System.out.print("Press Enter to stop the server.");
+                    scanner.nextLine();
+                }
+            } finally {
+                closeModel(mapGoogle1000);
+            }
+            System.out.println(Metrics.get().summary());
+            System.out.println("Server stopped.");
+        } catch (Throwable e) {
+            System.err.println("An error occurred. Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the Google 1000 words and the embeddings, and builds the MapGoogle1000 with the configured index,
+     * replacement table and cache, ready to simplify text. The independent loading stages are forked as
+     * subtasks, so the startup time approaches that of the slowest stage rather than the sum of all of them.
+     *
+     * <p><b>Time Complexity:</b> O(n + m), where n is the number of words in the Google 1000 list and m is
+     * the number of words in the embeddings file, plus the cost of building the configured index and table</p>
+     *
+     * @param inputWords scans the distinct words of the input the model will simplify, for lazy loading, or
+     *                   null if the input is not known in advance
+     * @param startup    times the stages
+     * @return the initialized map
+     * @throws Throwable If an error occurs while loading the files
+     */
+    private static MapGoogle1000 loadModel(StartupPipeline.Stage<Set<String>> inputWords, StartupPipeline startup)
+            throws Throwable {
+        boolean lazy = lazyEmbeddings && canLoadLazily(inputWords);
+        // A snapshot holds the whole vocabulary at full precision, so it is neither restored nor written for a
+        // lazily loaded or quantized model
+        boolean useSnapshot = snapshotFile != null && !lazy && !quantizedEmbeddings;
+        MapGoogle1000 restored = useSnapshot ? startup.run("model snapshot", () -> ModelSnapshot.restore(
+                Path.of(snapshotFile), Path.of(embeddingsFile), Path.of(google1000File), describeSearch())) : null;
+        if (restored != null) {
+            return finishModel(restored, true, useSnapshot, startup,
+                    cacheCapacity > 0 ? startup.run("cache", Runner::createCache) : null);
+        }
+
+        ConcurrentSkipListSet<String> google1000Set;
+        Set<String> tokens = null;
+        EmbeddingsStore embeddingsMap = null;
+        WordCache cache = null;
+
+        // The stages that depend on nothing run concurrently: the Google 1000 words, the embeddings (or, when
+        // loading lazily, the input's words, which the embeddings then wait for) and the warmed cache
+        try (var scope = StructuredTaskScope.open()) {
+            var googleTask = scope.fork(startup.stage("Google 1000 words", Runner::loadGoogleWords));
+            var tokensTask = lazy ? scope.fork(startup.stage("input words", inputWords)) : null;
+            var embeddingsTask = lazy ? null : scope.fork(startup.stage("embeddings", () -> loadEmbeddingsTimed(null)));
+            var cacheTask = cacheCapacity > 0 ? scope.fork(startup.stage("cache", Runner::createCache)) : null;
+            scope.join();
+
+            google1000Set = googleTask.get();
+            if (tokensTask != null) {
+                tokens = tokensTask.get();
+            }
+            if (embeddingsTask != null) {
+                embeddingsMap = embeddingsTask.get();
+            }
+            if (cacheTask != null) {
+                cache = cacheTask.get();
+            }
+        }
+        if (lazy) {
+            List<String> words = new ArrayList<>(tokens);
+            words.addAll(google1000Set);
+            WordTable keep = new WordTable(words);
+            embeddingsMap = startup.run("embeddings", () -> loadEmbeddingsTimed(keep));
+        }
+
+        if (quantizedEmbeddings && !(embeddingsMap instanceof QuantizedEmbeddingsStore)) {
+            EmbeddingsStore full = embeddingsMap;
+            embeddingsMap = quantizeEmbeddings(google1000Set, full);
+            closeEmbeddings(full);
+        }
+
+        // Initialize Google 1000 embeddings
+        return finishModel(new MapGoogle1000(google1000Set, embeddingsMap), false, useSnapshot, startup, cache);
+    }
+
+    /**
+     * Builds the index of a loaded or restored map, prepares its replacement table and installs its cache. A
+     * restored map already has its candidate matrix, so only an approximate or projected index is built over
+     * it. The snapshot is written whenever the model did not come from it, or gained a replacement table since.
+     *
+     * <p><b>Time Complexity:</b> O(g * d), where g is the number of Google 1000 words and d is the vector
+     * dimension, plus the cost of an approximate index, of precomputing replacements and of writing the
+     * snapshot when those are enabled</p>
+     *
+     * @param mapGoogle1000 the map to finish
+     * @param restored      true if the map was restored from the snapshot
+     * @param useSnapshot   true if the snapshot applies to this model
+     * @param startup       the pipeline timing the stages
+     * @param cache         the cache to install, or null
+     * @return the finished map
+     * @throws Throwable If an error occurs while building the index or preparing the replacement table
+     */
+    private static MapGoogle1000 finishModel(MapGoogle1000 mapGoogle1000, boolean restored, boolean useSnapshot,
+                                             StartupPipeline startup, WordCache cache) throws Throwable {
+        if (approximateIndex) {
+            int m = hnswM, efConstruction = hnswEfConstruction, efSearch = hnswEfSearch;
+            mapGoogle1000.setIndexFactory(matrix -> new HnswIndex(matrix, m, efConstruction, efSearch));
+        } else if (projectedIndex) {
+            int components = projectedComponents;
+            mapGoogle1000.setIndexFactory(matrix -> new ProjectedCandidateIndex(matrix, components));
+        } else if (quantizedEmbeddings) {
+            mapGoogle1000.setIndexFactory(QuantizedCandidateIndex::new);
+        }
+        if (!restored || approximateIndex || projectedIndex) {
+            startup.run("candidate matrix", () -> {
+                mapGoogle1000.initializeGoogle1000Embeddings();
+                return null;
+            });
+        }
+        if (approximateIndex) {
+            IndexRecall.Result recall = IndexRecall.measure(mapGoogle1000.getCandidateMatrix(),
+                    mapGoogle1000.getIndex(), IndexRecall.sampleQueries(mapGoogle1000.getEmbeddings(), RECALL_SAMPLE_SIZE, 1));
+            System.out.println("Approximate index " + recall);
+        } else if (mapGoogle1000.getIndex() instanceof ProjectedCandidateIndex projected) {
+            System.out.printf("Projected index: %d of %d dimensions capture %.1f%% of the candidates' energy%n",
+                    projected.components(), mapGoogle1000.getCandidateMatrix().dimension(), projected.capturedEnergy() * 100);
+        }
+        boolean tableAdded = precomputeReplacements && !mapGoogle1000.hasReplacementTable();
+        if (tableAdded) {
+            prepareReplacementTable(mapGoogle1000);
+        }
+        if (useSnapshot && (!restored || tableAdded)) {
+            writeSnapshot(mapGoogle1000, startup);
+        }
+
+        if (cache != null) {
+            mapGoogle1000.setCache(cache);
+        }
+        return mapGoogle1000;
+    }
+
+    /**
+     * Writes the model snapshot. A failure is reported but does not stop the run, which only loses the warm
+     * start of the next one.
+     *
+     * <p><b>Time Complexity:</b> O(n * d + b), where n is the size of the vocabulary, d is the vector dimension
+     * and b is the size of the source files</p>
+     *
+     * @param mapGoogle1000 the initialized map
+     * @param startup       the pipeline timing the stages
+     * @throws Throwable If the stage is interrupted
+     */
+    private static void writeSnapshot(MapGoogle1000 mapGoogle1000, StartupPipeline startup) throws Throwable {
+        startup.run("snapshot write", () -> {
+            try {
+                ModelSnapshot.write(mapGoogle1000, Path.of(snapshotFile), Path.of(embeddingsFile), Path.of(google1000File),
+                        describeSearch());
+            } catch (IOException e) {
+                System.out.println("Could not write the model snapshot: " + e.getMessage());
+            }
+            return null;
+        });
+    }
+
+    private static ConcurrentSkipListSet<String> loadGoogleWords() throws Throwable {
+        GoogleWordsLoader googleWordsLoader = new GoogleWordsLoader();
+        googleWordsLoader.setChunkSizer(ChunkSizer.of(chunkMode, chunkLimit));
+        googleWordsLoader.processFile(google1000File, null);
+        return googleWordsLoader.getGoogle1000Set();
+    }
+
+    private static EmbeddingsStore loadEmbeddingsTimed(WordTable keep) throws Throwable {
+        Metrics.EmbeddingsLoadEvent loadEvent = new Metrics.EmbeddingsLoadEvent();
+        loadEvent.begin();
+        long loadStart = System.nanoTime();
+        EmbeddingsStore embeddingsMap = loadEmbeddings(embeddingsFile, keep);
+        Metrics.get().embeddingsLoaded(embeddingsFile, embeddingsMap.size(), loadEvent, System.nanoTime() - loadStart);
+        return embeddingsMap;
+    }
+
+    private static WordCache createCache() throws Throwable {
+        WordCache cache = new WordCache(cacheCapacity, cachePolicy);
+        cache.setFingerprint(ReplacementTable.fingerprint(embeddingsFile, google1000File, describeSearch()));
+        if (cacheDumpFile != null && new File(cacheDumpFile).isFile()) {
+            if (cache.isDumpCurrent(cacheDumpFile)) {
+                cache.processFile(cacheDumpFile, null);
+                System.out.println("Warmed cache with " + cache.size() + " entries from: " + cacheDumpFile);
+            } else {
+                System.out.println("Cache dump is out of date, not warming the cache from: " + cacheDumpFile);
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Creates a TextProcessor over the given map with the configured streaming and chunking options.
+     *
+     * <p><b>Time Complexity:</b> O(1)</p>
+     *
+     * @param mapGoogle1000 the initialized map
+     * @return the configured text processor
+     */
+    private static TextProcessor createTextProcessor(MapGoogle1000 mapGoogle1000) {
+        TextProcessor textProcessor = new TextProcessor(mapGoogle1000);
+        textProcessor.setStreaming(streaming);
+        textProcessor.setWindowSize(windowSize);
+        textProcessor.setMaxInFlight(maxInFlight);
+        textProcessor.setChunkSizer(ChunkSizer.of(chunkMode, chunkLimit));
+        textProcessor.setTwoPhase(twoPhase);
+        textProcessor.setCheckpointing(checkpointing);
+        textProcessor.setIncremental(incremental);
+        textProcessor.setWriteBehind(writeBehind);
+        return textProcessor;
+    }
+
+    /**
+     * Reports and dumps the cache of a map that is no longer used, and releases its embeddings.
+     *
+     * <p><b>Time Complexity:</b> O(c), where c is the number of cached entries that are dumped</p>
+     *
+     * @param mapGoogle1000 the map that is no longer used
+     * @throws Throwable If an error occurs while dumping the cache
+     */
+    private static void closeModel(MapGoogle1000 mapGoogle1000) throws Throwable {
+        closeEmbeddings(mapGoogle1000.getEmbeddings());
+        if (mapGoogle1000.getIndex() instanceof ProjectedCandidateIndex projected) {
+            System.out.println(projected);
+        }
+
+        WordCache cache = mapGoogle1000.getCache();
+        if (cache != null) {
+            System.out.println(cache.stats());
+            if (cacheDumpFile != null) {
+                cache.dump(cacheDumpFile);
+            }
+        }
+    }
+
+    /**
+     * Loads the embeddings from either a binary file, which is memory-mapped, or a GloVe CSV file, which is
+     * parsed either line by line or in parallel byte ranges, the latter restricted to the given words when
+     * lazy loading is enabled. With off-heap embeddings enabled, a binary file
+     * is mapped into a MemorySegment and the vectors of a CSV file are copied off the heap once parsed. With
+     * quantized embeddings and no quantization report, a CSV file is quantized as it is parsed, so its
+     * full-precision vectors are never held.
+     *
+     * <p><b>Time Complexity:</b> O(m) for a binary file, where m is the number of words, or O(m * d) for a
+     * CSV file, where d is the vector dimension</p>
+     *
+     * @param filePath the path to the embeddings file
+     * @param keep     the only words to parse from a CSV file, or null to load every word
+     * @return the loaded embeddings
+     * @throws Throwable If an error occurs while loading the embeddings
+     */
+    private static EmbeddingsStore loadEmbeddings(String filePath, WordTable keep) throws Throwable {
+        if (filePath.endsWith(BINARY_EMBEDDINGS_EXTENSION)) {
+            return offHeapEmbeddings ? OffHeapEmbeddingsStore.open(filePath) : BinaryEmbeddingsStore.open(filePath);
+        }
+        if (quantizedEmbeddings && !quantizationReport) {
+            return new ParallelEmbeddingsLoader().loadQuantized(filePath, keep);
+        }
+        EmbeddingsStore parsed;
+        if (keep != null) {
+            parsed = new ParallelEmbeddingsLoader().load(filePath, keep);
+        } else if (parallelParser) {
+            parsed = new ParallelEmbeddingsLoader().load(filePath);
+        } else {
+            GloVEEmbeddingsLoader gloveEmbeddingsLoader = new GloVEEmbeddingsLoader();
+            gloveEmbeddingsLoader.setChunkSizer(ChunkSizer.of(chunkMode, chunkLimit));
+            gloveEmbeddingsLoader.processFile(filePath, null);
+            parsed = gloveEmbeddingsLoader;
+        }
+        return offHeapEmbeddings ? OffHeapEmbeddingsStore.copyOf(parsed) : parsed;
+    }
+
+    /**
+     * Checks whether the embeddings can be loaded lazily, printing why not if they cannot: the inputs must be
+     * known in advance, and the embeddings must be a CSV file, as a binary file is memory-mapped and only read
+     * where it is used.
+     *
+     * <p><b>Time Complexity:</b> O(1)</p>
+     *
+     * @param inputWords scans the words of the input the model will simplify, or null
+     * @return true if only the vectors of the input's words need to be loaded
+     */
+    private static boolean canLoadLazily(StartupPipeline.Stage<Set<String>> inputWords) {
+        if (inputWords == null) {
+            System.out.println("Lazy loading needs the input files in advance; loading every embedding.");
+            return false;
+        }
+        if (embeddingsFile.endsWith(BINARY_EMBEDDINGS_EXTENSION)) {
+            System.out.println("Binary embeddings are memory-mapped and read on demand; loading them as usual.");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Scans the input files for their distinct cleaned words, so that only their vectors and those of the
+     * Google 1000 words are loaded.
+     *
+     * <p><b>Time Complexity:</b> O(c), where c is the number of characters in the input files</p>
+     *
+     * @param inputs the text files to scan
+     * @return the distinct words of the inputs
+     * @throws Throwable If an error occurs while reading the files
+     */
+    private static Set<String> scanTokens(List<String> inputs) throws Throwable {
+        TokenScanner tokenScanner = new TokenScanner();
+        tokenScanner.setChunkSizer(ChunkSizer.of(chunkMode, chunkLimit));
+        for (String input : inputs) {
+            tokenScanner.processFile(input, null);
+        }
+        System.out.println("Scanned " + tokenScanner.getTokens().size() + " distinct words from " + inputs.size()
+                + " input file(s)");
+        return tokenScanner.getTokens();
+    }
+
+    /**
+     * Scans the lines of one byte range of an input file for their distinct cleaned words, as a worker of a
+     * sharded run only simplifies its own range.
+     *
+     * <p><b>Time Complexity:</b> O(c), where c is the number of characters in the range</p>
+     *
+     * @param input the text file to scan
+     * @param start the byte offset of the first line of the range
+     * @param end   the byte offset just past the range
+     * @return the distinct words of the range
+     * @throws IOException If an error occurs while reading the file
+     */
+    private static Set<String> scanTokens(Path input, long start, long end) throws IOException {
+        TokenScanner tokenScanner = new TokenScanner();
+        tokenScanner.setChunkSizer(ChunkSizer.of(chunkMode, chunkLimit));
+        tokenScanner.loadAndProcessLines(input, start, end);
+        System.out.println("Scanned " + tokenScanner.getTokens().size() + " distinct words from bytes ["
+                + start + ", " + end + ") of " + input);
+        return tokenScanner.getTokens();
+    }
+
+    /**
+     * Releases the off-heap memory of an embeddings store once it is no longer used; other stores are left
+     * to the garbage collector.
+     *
+     * <p><b>Time Complexity:</b> O(1)</p>
+     *
+     * @param store the embeddings store that is no longer used
+     */
+    private static void closeEmbeddings(EmbeddingsStore store) {
+        if (store instanceof OffHeapEmbeddingsStore offHeap) {
+            offHeap.close();
+        } else if (store instanceof ModelSnapshot.Embeddings snapshot) {
+            snapshot.close();
+        }
+    }
+
+    /**
+     * Quantizes the embeddings to 8-bit codes and, when the quantization report is enabled, reports how often
+     * the replacement chosen with the quantized embeddings differs from the full-precision one over a sample of
+     * the vocabulary. Once this returns, the full-precision store is no longer referenced and can be reclaimed.
+     *
+     * <p><b>Time Complexity:</b> O(m * d), where m is the number of words in the embeddings file and d is the
+     * vector dimension, plus O(s * n * d) for the report, where s is the sample size and n is the number of
+     * Google 1000 words</p>
+     *
+     * @param google1000Set the Google 1000 words
+     * @param full          the full-precision embeddings
+     * @return the quantized embeddings
+     */
+    private static EmbeddingsStore quantizeEmbeddings(ConcurrentSkipListSet<String> google1000Set, EmbeddingsStore full) {
+        QuantizedEmbeddingsStore quantized = QuantizedEmbeddingsStore.quantize(full);
+        if (!quantizationReport) {
+            return quantized;
+        }
+
+        MapGoogle1000 fullMap = new MapGoogle1000(google1000Set, full);
+        fullMap.initializeGoogle1000Embeddings();
+        MapGoogle1000 quantizedMap = new MapGoogle1000(google1000Set, quantized);
+        quantizedMap.setIndexFactory(QuantizedCandidateIndex::new);
+        quantizedMap.initializeGoogle1000Embeddings();
+        System.out.println("Quantized embeddings: " + QuantizationReport.compare(fullMap, quantizedMap, RECALL_SAMPLE_SIZE, 1));
+        return quantized;
+    }
+
+    /**
+     * Installs a replacement table on the given map, reusing the persisted table when it was built from the
+     * same embeddings and Google 1000 files, and otherwise precomputing it and persisting it for later runs.
+     *
+     * <p><b>Time Complexity:</b> O(m) when a valid table is loaded, where m is the number of words in the
+     * embeddings file, or O(m * n) when it has to be precomputed, where n is the number of Google 1000 words</p>
+     *
+     * @param mapGoogle1000 the initialized map to install the table on
+     * @throws Throwable If an error occurs while loading, computing or saving the table
+     */
+    private static void prepareReplacementTable(MapGoogle1000 mapGoogle1000) throws Throwable {
+        String fingerprint = ReplacementTable.fingerprint(embeddingsFile, google1000File, describeSearch());
+
+        if (replacementTableFile != null && new File(replacementTableFile).isFile()) {
+            ReplacementTable persisted = new ReplacementTable();
+            persisted.processFile(replacementTableFile, null);
+            if (fingerprint.equals(persisted.getFingerprint())) {
+                System.out.println("Loaded " + persisted.size() + " precomputed replacements from: " + replacementTableFile);
+                mapGoogle1000.setReplacementTable(persisted);
+                return;
+            }
+            System.out.println("Replacement table is out of date, recomputing.");
+        }
+
+        System.out.println("Precomputing replacements for the embeddings vocabulary");
+        ReplacementTable table = mapGoogle1000.precomputeReplacements();
+        table.setFingerprint(fingerprint);
+        if (replacementTableFile != null && lazyEmbeddings) {
+            System.out.println("Not saving the replacement table, as lazy loading covers only the input's words.");
+        } else if (replacementTableFile != null) {
+            table.save(replacementTableFile);
+        }
+    }
+}
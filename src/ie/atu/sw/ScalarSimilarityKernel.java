@@ -0,0 +1,59 @@
+package ie.atu.sw;
+
+/**
+ * The ScalarSimilarityKernel class is the plain loop implementation of SimilarityKernel, used when the
+ * Vector API is not available.
+ */
+public class ScalarSimilarityKernel implements SimilarityKernel {
+    /**
+     * Calculates the dot product of two ranges of float arrays.
+     *
+     * <p><b>Time Complexity:</b> O(n), where n is the length of the ranges.</p>
+     */
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float dotProduct = 0;
+        for (int i = 0; i < length; i++) {
+            dotProduct += a[aOffset + i] * b[bOffset + i];
+        }
+        return dotProduct;
+    }
+
+    /**
+     * Scores one query against every row of a row-major matrix.
+     *
+     * <p><b>Time Complexity:</b> O(r * n), where r is the number of rows and n is the row length.</p>
+     */
+    @Override
+    public void scoreAll(float[] query, float[] matrix, int rows, float[] scores) {
+        int dimension = query.length;
+        for (int row = 0, offset = 0; row < rows; row++, offset += dimension) {
+            scores[row] = dot(query, 0, matrix, offset, dimension);
+        }
+    }
+
+    /**
+     * Calculates the cosine similarity of two vectors of the same length.
+     *
+     * <p><b>Time Complexity:</b> O(n), where n is the length of the vectors.</p>
+     */
+    @Override
+    public double cosine(double[] a, double[] b) {
+        double dotProduct = 0;
+        double norm1 = 0;
+        double norm2 = 0;
+
+        for (int i = 0; i < a.length; i++) {
+            dotProduct += a[i] * b[i];
+            norm1 += a[i] * a[i];
+            norm2 += b[i] * b[i];
+        }
+
+        return dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,273 @@
+package ie.atu.sw;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.StructuredTaskScope;
+
+/**
+ * The ShardCoordinator class simplifies one large text file in several worker JVMs on the same machine. The
+ * input is split into shards of roughly equal size, each starting at the beginning of a line, and each shard
+ * is processed by a worker process launched with the same Java runtime, class path and JVM options as the
+ * coordinator. Every worker loads its own model, writes its shard to its own part file and reports back over
+ * its standard output pipe; the coordinator then concatenates the part files in shard order, so the output is
+ * the same as a single run over the whole file.
+ *
+ * <p>The workers share the machine's processors, so each one's virtual thread scheduler is limited to its
+ * share of them. If a worker fails, every other worker is stopped and the run fails with the failed worker's
+ * last lines of output.</p>
+ */
+public class ShardCoordinator {
+    /**
+     * The line a worker prints when its shard is done, followed by its line count, byte count, model load time
+     * and processing time in nanoseconds.
+     */
+    public static final String STATUS_PREFIX = "SHARD-DONE ";
+    public static final String PART_SUFFIX = ".shard-";
+
+    private static final int TAIL_LINES = 20;
+
+    /**
+     * A line-aligned byte range of the input file.
+     *
+     * @param index the position of the shard in the file
+     * @param start the byte offset of its first line
+     * @param end   the byte offset just past its last line
+     */
+    public record Shard(int index, long start, long end) {
+        public long bytes() {
+            return end - start;
+        }
+    }
+
+    /**
+     * The outcome of one shard, as reported by its worker.
+     *
+     * @param shard        the shard
+     * @param lines        the number of lines processed
+     * @param loadNanos    the time the worker took to load its model
+     * @param processNanos the time the worker took to process its shard
+     * @param wallNanos    the time from launching the worker to its exit
+     */
+    public record Result(Shard shard, long lines, long loadNanos, long processNanos, long wallNanos) {
+        @Override
+        public String toString() {
+            return String.format("Shard %d [%d, %d): %d lines, %.1f MB in %.1f ms, %.2f MB/s (model %.1f ms, process %.1f ms)",
+                    shard.index(), shard.start(), shard.end(), lines, shard.bytes() / 1e6, wallNanos / 1e6,
+                    shard.bytes() / 1e6 / Math.max(1e-9, processNanos / 1e9), loadNanos / 1e6, processNanos / 1e6);
+        }
+    }
+
+    private final List<String> workerArguments;
+
+    /**
+     * Constructs a coordinator.
+     *
+     * @param workerArguments the model and option arguments passed on to every worker, such as
+     *                        {@code --embeddings <file> --google <file> --two-phase}
+     */
+    public ShardCoordinator(List<String> workerArguments) {
+        this.workerArguments = List.copyOf(workerArguments);
+    }
+
+    /**
+     * Splits a file into at most {@code count} shards of roughly equal size, each starting just after a line
+     * break. A small file may give fewer shards, and an empty file none.
+     *
+     * <p><b>Time Complexity:</b> O(s * l), where s is the number of shards and l is the length of a line.</p>
+     *
+     * @param input the input file
+     * @param count the number of shards wanted
+     * @return the shards, in file order
+     * @throws IOException if the file cannot be read
+     */
+    public static List<Shard> split(Path input, int count) throws IOException {
+        List<Shard> shards = new ArrayList<>(count);
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long target = Math.max(1, size / count);
+            long start = 0;
+            while (start < size) {
+                long end = shards.size() == count - 1 ? size
+                        : ParallelEmbeddingsLoader.nextLineStart(channel, Math.min(size, start + target));
+                shards.add(new Shard(shards.size(), start, end));
+                start = end;
+            }
+        }
+        return shards;
+    }
+
+    /**
+     * Simplifies a file in worker processes, one per shard, and merges their output in order.
+     *
+     * <p><b>Time Complexity:</b> O(m * s + t / s), where m is the cost of loading the model in each worker,
+     * s is the number of shards and t is the number of words in the file, given one processor per shard.</p>
+     *
+     * @param input  the input text file
+     * @param output the output file
+     * @param count  the number of shards, and so of worker processes
+     * @return the result of every shard, in order
+     * @throws Throwable if a worker fails or the output cannot be written
+     */
+    public List<Result> run(Path input, Path output, int count) throws Throwable {
+        List<Shard> shards = split(input, count);
+        List<Path> parts = shards.stream()
+                .map(shard -> output.resolveSibling(output.getFileName() + PART_SUFFIX + shard.index()))
+                .toList();
+        int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() / Math.max(1, shards.size()));
+        List<Process> processes = new CopyOnWriteArrayList<>();
+
+        List<StructuredTaskScope.Subtask<Result>> subtasks = new ArrayList<>(shards.size());
+        try (var scope = StructuredTaskScope.open()) {
+            for (Shard shard : shards) {
+                Path part = parts.get(shard.index());
+                subtasks.add(scope.fork(() -> runWorker(input, shard, part, parallelism, processes)));
+            }
+            scope.join();
+        } catch (Throwable e) {
+            processes.forEach(Process::destroyForcibly);
+            for (Path part : parts) {
+                Files.deleteIfExists(part);
+            }
+            throw e;
+        }
+
+        merge(parts, output);
+        return subtasks.stream().map(StructuredTaskScope.Subtask::get).toList();
+    }
+
+    /**
+     * Launches the worker for one shard and follows its output until it exits. Its last lines are kept so
+     * that a failure can be reported with them; if it fails, every other worker is stopped at once.
+     */
+    private Result runWorker(Path input, Shard shard, Path part, int parallelism, List<Process> processes)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command(input, shard, part, parallelism))
+                .redirectErrorStream(true)
+                .start();
+        processes.add(process);
+        try {
+            String status = null;
+            Queue<String> tail = new ArrayDeque<>(TAIL_LINES);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                for (String line; (line = reader.readLine()) != null; ) {
+                    if (line.startsWith(STATUS_PREFIX)) {
+                        status = line.substring(STATUS_PREFIX.length());
+                    } else {
+                        if (tail.size() == TAIL_LINES) {
+                            tail.remove();
+                        }
+                        tail.add(line);
+                    }
+                }
+            }
+            int exitValue = process.waitFor();
+            if (exitValue != 0 || status == null) {
+                throw new IOException("Worker for shard " + shard.index() + " exited with status " + exitValue
+                        + (tail.isEmpty() ? "" : ":" + System.lineSeparator() + String.join(System.lineSeparator(), tail)));
+            }
+
+            String[] fields = status.trim().split(" ");
+            Result result = new Result(shard, Long.parseLong(fields[0]), Long.parseLong(fields[2]),
+                    Long.parseLong(fields[3]), System.nanoTime() - start);
+            System.out.println(result);
+            return result;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            processes.forEach(Process::destroyForcibly);
+            throw e;
+        } finally {
+            process.destroyForcibly();
+        }
+    }
+
+    /**
+     * Builds the command line of a worker: the coordinator's own Java runtime, JVM options and class path,
+     * then the worker arguments of Runner.
+     */
+    private List<String> command(Path input, Shard shard, Path part, int parallelism) {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        for (String option : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            // A recording or debugger agent would clash between workers
+            if (!option.startsWith("-XX:StartFlightRecording") && !option.startsWith("-agentlib:jdwp")) {
+                command.add(option);
+            }
+        }
+        command.add("-Djdk.virtualThreadScheduler.parallelism=" + parallelism);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Runner.class.getName());
+        command.add("--worker");
+        command.add(input.toString());
+        command.add(Long.toString(shard.start()));
+        command.add(Long.toString(shard.end()));
+        command.add(part.toString());
+        command.addAll(workerArguments);
+        return command;
+    }
+
+    /**
+     * Concatenates the part files into the output in order, then deletes them.
+     *
+     * <p><b>Time Complexity:</b> O(b), where b is the total size of the parts in bytes.</p>
+     *
+     * @param parts  the part files, in order
+     * @param output the output file
+     * @throws IOException if a part cannot be read or the output cannot be written
+     */
+    static void merge(List<Path> parts, Path output) throws IOException {
+        try (FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Path part : parts) {
+                try (FileChannel in = FileChannel.open(part, StandardOpenOption.READ)) {
+                    long size = in.size();
+                    for (long position = 0; position < size; ) {
+                        position += in.transferTo(position, size - position, out);
+                    }
+                }
+            }
+        }
+        for (Path part : parts) {
+            Files.delete(part);
+        }
+    }
+
+    /**
+     * Formats the status line a worker prints when its shard is done.
+     *
+     * @param lines        the number of lines processed
+     * @param bytes        the size of the shard in bytes
+     * @param loadNanos    the time taken to load the model
+     * @param processNanos the time taken to process the shard
+     * @return the status line
+     */
+    public static String status(long lines, long bytes, long loadNanos, long processNanos) {
+        return STATUS_PREFIX + lines + " " + bytes + " " + loadNanos + " " + processNanos;
+    }
+
+    /**
+     * Summarises a sharded run.
+     *
+     * @param results    the result of every shard
+     * @param bytes      the size of the input file
+     * @param totalNanos the wall-clock time of the whole run, including the merge
+     * @return the number of shards, the total time and the overall throughput
+     */
+    public static String summary(List<Result> results, long bytes, long totalNanos) {
+        long lines = results.stream().mapToLong(Result::lines).sum();
+        return String.format("%d shards, %d lines, %.1f MB in %.1f ms, %.2f MB/s", results.size(), lines,
+                bytes / 1e6, totalNanos / 1e6, bytes / 1e6 / Math.max(1e-9, totalNanos / 1e9));
+    }
+}
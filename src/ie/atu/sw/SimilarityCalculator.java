@@ -8,8 +8,22 @@ package ie.atu.sw;
  * <p>Cosine similarity is a measure of similarity between two non-zero vectors of an inner product space.
  * It is defined to equal the cosine of the angle between them, which is also the same as the inner product
  * of the same vectors normalized to both have length 1.</p>
+ *
+ * <p>The arithmetic is delegated to a SimilarityKernel chosen once at startup, which uses SIMD
+ * instructions through the Vector API when the jdk.incubator.vector module is available.</p>
  */
 public class SimilarityCalculator {
+    private static final SimilarityKernel KERNEL = SimilarityKernel.select();
+
+    /**
+     * Returns the name of the kernel chosen at startup.
+     *
+     * @return the name of the kernel in use
+     */
+    public static String kernelName() {
+        return KERNEL.name();
+    }
+
     /**
      * Calculates the cosine similarity between two vectors.
      *
@@ -28,16 +42,101 @@ public class SimilarityCalculator {
             return 0;
         }
 
-        double dotProduct = 0;
-        double norm1 = 0;
-        double norm2 = 0;
+        return KERNEL.cosine(vectorA, vectorB);
+    }
 
-        for (int i = 0; i < vectorA.length; i++) {
-            dotProduct += vectorA[i] * vectorB[i];
-            norm1 += vectorA[i] * vectorA[i];
-            norm2 += vectorB[i] * vectorB[i];
+    /**
+     * Scales a vector to unit length and narrows it to single precision, so that the cosine similarity
+     * between two normalized vectors is simply their dot product.
+     *
+     * <p><b>Time Complexity:</b> O(n), where n is the length of the vector.</p>
+     *
+     * @param vector the vector to normalize
+     * @return a new unit-length vector, or null if the vector is null or has zero length
+     */
+    public float[] normalize(double[] vector) {
+        if (vector == null) {
+            return null;
+        }
+
+        double norm = 0;
+        for (double value : vector) {
+            norm += value * value;
+        }
+        if (norm == 0 || Double.isNaN(norm)) {
+            return null;
+        }
+
+        double scale = 1.0 / Math.sqrt(norm);
+        float[] unit = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            unit[i] = (float) (vector[i] * scale);
         }
+        return unit;
+    }
 
-        return dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
+    /**
+     * Calculates the dot product of a vector with one row of a row-major matrix.
+     *
+     * <p><b>Time Complexity:</b> O(n), where n is the length of the vector.</p>
+     *
+     * @param vector the vector, whose length is the row length
+     * @param matrix the row-major matrix
+     * @param offset the index in the matrix where the row starts
+     * @return the dot product of the vector and the row
+     */
+    public float dot(float[] vector, float[] matrix, int offset) {
+        return KERNEL.dot(vector, 0, matrix, offset, vector.length);
+    }
+
+    /**
+     * Calculates the dot product of two ranges of float arrays, such as two rows of the same matrix.
+     *
+     * <p><b>Time Complexity:</b> O(n), where n is the length of the ranges.</p>
+     *
+     * @param a       the first array
+     * @param aOffset the index in the first array where the range starts
+     * @param b       the second array
+     * @param bOffset the index in the second array where the range starts
+     * @param length  the number of values in each range
+     * @return the dot product of the two ranges
+     */
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        return KERNEL.dot(a, aOffset, b, bOffset, length);
+    }
+
+    /**
+     * Calculates the dot product of two ranges of signed 8-bit codes, such as two rows of a quantized matrix.
+     * The products are accumulated exactly in an int, which cannot overflow for rows shorter than 2^17 values.
+     *
+     * <p><b>Time Complexity:</b> O(n), where n is the length of the ranges.</p>
+     *
+     * @param a       the first array
+     * @param aOffset the index in the first array where the range starts
+     * @param b       the second array
+     * @param bOffset the index in the second array where the range starts
+     * @param length  the number of values in each range
+     * @return the dot product of the two ranges
+     */
+    public int dot(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        int sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    /**
+     * Scores one query vector against the first rows of a row-major matrix in a single batched pass.
+     *
+     * <p><b>Time Complexity:</b> O(r * n), where r is the number of rows and n is the length of the query.</p>
+     *
+     * @param query  the query vector, whose length is the row length
+     * @param matrix the row-major matrix
+     * @param rows   the number of rows to score
+     * @param scores the array receiving the dot product of the query with each row
+     */
+    public void scoreAll(float[] query, float[] matrix, int rows, float[] scores) {
+        KERNEL.scoreAll(query, matrix, rows, scores);
     }
 }
@@ -0,0 +1,73 @@
+package ie.atu.sw;
+
+/**
+ * The SimilarityKernel interface is the inner loop of the similarity search: dot products and cosine
+ * similarity over raw arrays. SimilarityCalculator delegates to the kernel chosen once at startup by
+ * {@link #select()}, which is the SIMD implementation when the Vector API is available and the scalar
+ * one otherwise.
+ */
+public interface SimilarityKernel {
+    /**
+     * The system property that forces the scalar kernel when set to true.
+     */
+    String SCALAR_PROPERTY = "ie.atu.sw.scalarKernel";
+
+    /**
+     * Calculates the dot product of two ranges of float arrays.
+     *
+     * @param a       the first array
+     * @param aOffset the index in the first array where the range starts
+     * @param b       the second array
+     * @param bOffset the index in the second array where the range starts
+     * @param length  the number of values in each range
+     * @return the dot product of the two ranges
+     */
+    float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    /**
+     * Scores one query against every row of a row-major matrix, writing one dot product per row.
+     *
+     * @param query  the query vector, whose length is the row length
+     * @param matrix the row-major matrix
+     * @param rows   the number of rows to score
+     * @param scores the array receiving the score of each row
+     */
+    void scoreAll(float[] query, float[] matrix, int rows, float[] scores);
+
+    /**
+     * Calculates the cosine similarity of two vectors of the same length.
+     *
+     * @param a the first vector
+     * @param b the second vector
+     * @return the cosine similarity of the two vectors
+     */
+    double cosine(double[] a, double[] b);
+
+    /**
+     * Returns a short name for the kernel, for reporting.
+     *
+     * @return the name of the kernel
+     */
+    String name();
+
+    /**
+     * Chooses the kernel to use for this run. The SIMD kernel is loaded reflectively so that the
+     * application still starts when the jdk.incubator.vector module has not been added.
+     *
+     * <p><b>Time Complexity:</b> O(1)</p>
+     *
+     * @return the SIMD kernel when the Vector API is available, otherwise the scalar kernel
+     */
+    static SimilarityKernel select() {
+        if (!Boolean.getBoolean(SCALAR_PROPERTY)
+                && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (SimilarityKernel) Class.forName("ie.atu.sw.VectorSimilarityKernel")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                System.err.println("Vector API unavailable, using scalar similarity. Error: " + e.getMessage());
+            }
+        }
+        return new ScalarSimilarityKernel();
+    }
+}
@@ -0,0 +1,273 @@
+package ie.atu.sw;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The SimplificationServer class serves text simplification over HTTP on the loopback interface, using a
+ * model that has been loaded once, so that each request only pays for the simplification itself. Every
+ * exchange is handled on its own virtual thread.
+ *
+ * <p>The endpoints are:</p>
+ * <ul>
+ *     <li>{@code GET /word?word=...} simplifies a single word</li>
+ *     <li>{@code POST /text} simplifies the request body, line by line</li>
+ *     <li>{@code POST /file?input=...&output=...} simplifies a file on the server's file system</li>
+ * </ul>
+ * <p>Responses are UTF-8 plain text; errors are reported with a 4xx or 5xx status and a one-line message.</p>
+ *
+ * <p>Every request must carry the token generated for this run in an {@code Authorization: Bearer} header, and
+ * requests with an {@code Origin} header are refused, so a web page open in a browser on the same machine can
+ * neither send a request nor read a response. The file endpoint only reads and writes files inside the
+ * directory the server was given; its paths are resolved against that directory.</p>
+ */
+public class SimplificationServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 8080;
+
+    private static final int TOKEN_BYTES = 24;
+
+    private final TextProcessor textProcessor;
+    private final Path directory;
+    private final String token;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Binds a server to a port on the loopback interface and generates its token. The server does not accept
+     * requests until started.
+     *
+     * @param textProcessor the text processor over the loaded model
+     * @param port          the port to listen on, or 0 for any free port
+     * @param directory     the directory the file endpoint may read and write in
+     * @throws IOException if the directory does not exist or the port cannot be bound
+     */
+    public SimplificationServer(TextProcessor textProcessor, int port, Path directory) throws IOException {
+        this.textProcessor = textProcessor;
+        this.directory = directory.toRealPath();
+        if (!Files.isDirectory(this.directory)) {
+            throw new IOException("Not a directory: " + directory);
+        }
+        byte[] random = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(random);
+        this.token = HexFormat.of().formatHex(random);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/word", exchange -> handle(exchange, "GET", this::simplifyWord));
+        server.createContext("/text", exchange -> handle(exchange, "POST", this::simplifyText));
+        server.createContext("/file", exchange -> handle(exchange, "POST", this::simplifyFile));
+    }
+
+    /**
+     * Starts accepting requests in the background.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Returns the port the server is bound to.
+     *
+     * @return the local port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the token every request must present as {@code Authorization: Bearer <token>}.
+     *
+     * @return the token generated for this server
+     */
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Returns the directory the file endpoint is confined to.
+     *
+     * @return the real path of the directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Stops accepting requests, releases the port and waits for the exchanges already in progress to run to
+     * completion, so the model can be closed once this returns. An interrupt does not cut the wait short; the
+     * thread's interrupt status is restored before returning.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    break;
+                }
+                System.out.println("Waiting for requests in progress to finish...");
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Produces the response body of a request.
+     */
+    @FunctionalInterface
+    private interface Endpoint {
+        String respond(HttpExchange exchange, Map<String, String> parameters) throws Throwable;
+    }
+
+    /**
+     * Thrown by an endpoint when the request itself is invalid.
+     */
+    @SuppressWarnings("serial")
+    private static final class BadRequestException extends Exception {
+        BadRequestException(String message) {
+            super(message);
+        }
+    }
+
+    private void handle(HttpExchange exchange, String method, Endpoint endpoint) throws IOException {
+        try (exchange) {
+            if (exchange.getRequestHeaders().containsKey("Origin")) {
+                respond(exchange, 403, "Cross-origin requests are not accepted");
+                return;
+            }
+            if (!authorized(exchange.getRequestHeaders().getFirst("Authorization"))) {
+                exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+                respond(exchange, 401, "Missing or invalid token");
+                return;
+            }
+            if (!exchange.getRequestURI().getPath().equals(exchange.getHttpContext().getPath())) {
+                respond(exchange, 404, "Not found: " + exchange.getRequestURI().getPath());
+                return;
+            }
+            if (!exchange.getRequestMethod().equals(method)) {
+                exchange.getResponseHeaders().set("Allow", method);
+                respond(exchange, 405, "Use " + method + " for " + exchange.getHttpContext().getPath());
+                return;
+            }
+            try {
+                respond(exchange, 200, endpoint.respond(exchange, parameters(exchange.getRequestURI().getRawQuery())));
+            } catch (BadRequestException e) {
+                respond(exchange, 400, e.getMessage());
+            } catch (Throwable e) {
+                respond(exchange, 500, "Failed to simplify: " + e);
+            }
+        }
+    }
+
+    private boolean authorized(String authorization) {
+        String expected = "Bearer " + token;
+        return authorization != null && MessageDigest.isEqual(
+                authorization.getBytes(StandardCharsets.UTF_8), expected.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String simplifyWord(HttpExchange exchange, Map<String, String> parameters) throws BadRequestException {
+        String word = parameters.get("word");
+        if (word == null || word.isBlank()) {
+            throw new BadRequestException("Missing parameter: word");
+        }
+        return textProcessor.processLine(word.strip());
+    }
+
+    private String simplifyText(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        String text = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        String[] lines = text.split("\n", -1);
+        StringBuilder simplified = new StringBuilder(text.length());
+        for (int i = 0; i < lines.length; i++) {
+            if (i > 0) {
+                simplified.append('\n');
+            }
+            simplified.append(textProcessor.processLine(lines[i]));
+        }
+        return simplified.toString();
+    }
+
+    private String simplifyFile(HttpExchange exchange, Map<String, String> parameters) throws Throwable {
+        String input = parameters.get("input");
+        String output = parameters.get("output");
+        if (input == null || output == null) {
+            throw new BadRequestException("Missing parameter: " + (input == null ? "input" : "output"));
+        }
+        Path inputPath = confine("input", input);
+        Path outputPath = confine("output", output);
+        if (!Files.isRegularFile(inputPath)) {
+            throw new BadRequestException("No such file: " + input);
+        }
+        if (outputPath.equals(inputPath)) {
+            throw new BadRequestException("The output must not overwrite the input: " + output);
+        }
+        long start = System.nanoTime();
+        textProcessor.processFile(inputPath.toString(), outputPath.toString());
+        return String.format("Wrote %s in %.1f ms", output, (System.nanoTime() - start) / 1e6);
+    }
+
+    /**
+     * Resolves a file parameter against the server's directory, following any symbolic links of the file and
+     * its parent directory, and rejects it unless the result lies inside the directory.
+     */
+    private Path confine(String name, String value) throws BadRequestException, IOException {
+        Path path = directory.resolve(value).normalize();
+        Path parent = path.getParent();
+        if (parent == null || !Files.isDirectory(parent)) {
+            throw new BadRequestException("No such directory for " + name + ": " + value);
+        }
+        Path real = parent.toRealPath().resolve(path.getFileName());
+        if (Files.exists(real)) {
+            real = real.toRealPath();
+        }
+        if (!real.startsWith(directory) || real.equals(directory)) {
+            throw new BadRequestException("The " + name + " must be inside " + directory + ": " + value);
+        }
+        return real;
+    }
+
+    private static Map<String, String> parameters(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
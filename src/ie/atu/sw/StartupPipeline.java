@@ -0,0 +1,92 @@
+package ie.atu.sw;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * The StartupPipeline class times the stages of loading a model, such as the Google 1000 words, the embeddings
+ * and the input text, which are forked as subtasks so that independent stages overlap. Each stage reports how
+ * long it ran and when it finished relative to the start of the pipeline, so that the overall startup time can
+ * be compared with the slowest single stage.
+ */
+public class StartupPipeline {
+    /**
+     * The work of one stage.
+     *
+     * @param <T> the result of the stage
+     */
+    @FunctionalInterface
+    public interface Stage<T> {
+        T run() throws Throwable;
+    }
+
+    private final long start = System.nanoTime();
+    private volatile String slowestStage;
+    private volatile long slowestNanos = -1;
+
+    /**
+     * Wraps a stage as a task that can be forked, timing it when it runs. A Throwable that is neither an
+     * Exception nor an Error is wrapped in an ExecutionException.
+     *
+     * @param name  the name of the stage, for reporting
+     * @param stage the work of the stage
+     * @param <T>   the result of the stage
+     * @return the task
+     */
+    public <T> Callable<T> stage(String name, Stage<T> stage) {
+        return task(() -> run(name, stage));
+    }
+
+    /**
+     * Wraps work as a task that can be forked, without timing it, for work made up of stages that are timed
+     * themselves. A Throwable that is neither an Exception nor an Error is wrapped in an ExecutionException.
+     *
+     * @param work the work to run
+     * @param <T>  the result of the work
+     * @return the task
+     */
+    public static <T> Callable<T> task(Stage<T> work) {
+        return () -> {
+            try {
+                return work.run();
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new ExecutionException(e);
+            }
+        };
+    }
+
+    /**
+     * Runs a stage on the calling thread, timing it, for stages that depend on the results of earlier ones.
+     *
+     * @param name  the name of the stage, for reporting
+     * @param stage the work of the stage
+     * @param <T>   the result of the stage
+     * @return the result of the stage
+     * @throws Throwable if the stage fails
+     */
+    public <T> T run(String name, Stage<T> stage) throws Throwable {
+        long stageStart = System.nanoTime();
+        T result = stage.run();
+        long end = System.nanoTime();
+        record(name, end - stageStart);
+        System.out.printf("Startup: %s took %.1f ms, done at %.1f ms%n", name, (end - stageStart) / 1e6, (end - start) / 1e6);
+        return result;
+    }
+
+    private synchronized void record(String name, long nanos) {
+        if (nanos > slowestNanos) {
+            slowestNanos = nanos;
+            slowestStage = name;
+        }
+    }
+
+    /**
+     * Prints the total startup time next to the slowest stage.
+     */
+    public void report() {
+        System.out.printf("Startup ready after %.1f ms; the slowest stage, %s, took %.1f ms%n",
+                (System.nanoTime() - start) / 1e6, slowestStage, Math.max(0, slowestNanos) / 1e6);
+    }
+}
@@ -1,17 +1,79 @@
 package ie.atu.sw;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * The TextProcessor class is responsible for processing text files by simplifying words
  * using the Google 1000 most common words and their embeddings.
  */
 public class TextProcessor extends FileProcessor {
+    public static final int DEFAULT_WINDOW_SIZE = 1024;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+
+    private static final int POOLED_SIMPLIFIERS = 64;
+
     private final MapGoogle1000 mapGoogle1000;
+    private boolean streaming;
+    private int windowSize = DEFAULT_WINDOW_SIZE;
+    private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+    private boolean twoPhase;
+    private boolean checkpointing;
+    private boolean incremental;
+    private final AtomicReferenceArray<LineSimplifier> simplifiers = new AtomicReferenceArray<>(POOLED_SIMPLIFIERS);
+
+    /**
+     * A window of consecutive input lines and their results, completed once every chunk has been processed.
+     */
+    private static final class Window {
+        private final List<String> lines;
+        private final String[] results;
+        private final long endOffset;
+        private final CountDownLatch remaining;
+        private volatile Throwable failure;
+
+        Window(List<String> lines, String[] results, long endOffset, int chunks) {
+            this.lines = lines;
+            this.results = results;
+            this.endOffset = endOffset;
+            this.remaining = new CountDownLatch(chunks);
+        }
+    }
+
+    /**
+     * A source of input lines, which may know the byte offset reached in its file.
+     */
+    @FunctionalInterface
+    private interface LineSource {
+        String readLine() throws IOException;
+
+        default long offset() {
+            return -1;
+        }
+    }
+
+    /**
+     * Called once a window's results have been written and flushed.
+     */
+    @FunctionalInterface
+    private interface WindowCommitter {
+        void commit(Window window) throws IOException;
+    }
 
     /**
      * Constructs a TextProcessor with the given MapGoogle1000.
@@ -22,8 +84,79 @@ public class TextProcessor extends FileProcessor {
         this.mapGoogle1000 = mapGoogle1000;
     }
 
+    /**
+     * Enables or disables streaming mode, where the file is read, simplified and written in bounded windows
+     * instead of being held in memory in full.
+     *
+     * @param streaming true to process files in streaming mode
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    /**
+     * Sets the number of lines read into each window in streaming mode.
+     *
+     * @param windowSize the number of lines per window
+     */
+    public void setWindowSize(int windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("Window size must be at least 1");
+        }
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Sets the number of windows that may be read but not yet written in streaming mode. Reading pauses
+     * when this limit is reached until the oldest window has been written, which bounds memory use.
+     *
+     * @param maxInFlight the maximum number of windows in flight
+     */
+    public void setMaxInFlight(int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("In-flight limit must be at least 1");
+        }
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Enables or disables two-phase mode, where the distinct words of the whole input are collected first and
+     * resolved in one batched search, so each distinct word is searched once however often it occurs, and the
+     * lines are then rewritten from the resolved replacements.
+     *
+     * @param twoPhase true to resolve the input's distinct words before rewriting its lines
+     */
+    public void setTwoPhase(boolean twoPhase) {
+        this.twoPhase = twoPhase;
+    }
+
+    /**
+     * Enables or disables checkpointing. A checkpointed run writes its output one window at a time as in
+     * streaming mode, and after each window is flushed to disk records in a sidecar file how far through the
+     * input and the output it has got. If the run is killed, the next run over the same input and output
+     * resumes from the last checkpoint. The sidecar is deleted when the run completes.
+     *
+     * @param checkpointing true to checkpoint runs and resume interrupted ones
+     */
+    public void setCheckpointing(boolean checkpointing) {
+        this.checkpointing = checkpointing;
+    }
+
+    /**
+     * Enables or disables incremental mode, which checkpoints as above but keeps the sidecar when the run
+     * completes, so that the next run over a growing input only processes the lines appended since and adds
+     * their output to the end of the existing output. A final line without a line terminator is left for a
+     * later run, as it may still be being written.
+     *
+     * @param incremental true to process only the tail appended since the last run
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
     /**
      * Processes a text file, simplifying words and writing the result to an output file while preserving order.
+     * Lines are processed concurrently in chunks sized by the chunk sizer.
      *
      * @param textFile   The path to the input text file
      * @param outputFile The path to the output file
@@ -31,47 +164,420 @@ public class TextProcessor extends FileProcessor {
      */
     @Override
     void processFile(String textFile, String outputFile) throws Throwable {
+        processFile(textFile, outputFile, null);
+    }
+
+    /**
+     * Processes a text file whose lines may already have been read, such as by a startup stage that ran
+     * while the model was loading. The lines are only used when the whole file is processed in memory; the
+     * streaming and checkpointed modes read the file themselves.
+     *
+     * @param textFile   The path to the input text file
+     * @param outputFile The path to the output file
+     * @param preloaded  the lines of the text file, or null to read them
+     * @throws Throwable If an error occurs during file processing
+     */
+    void processFile(String textFile, String outputFile, List<String> preloaded) throws Throwable {
         System.out.println("Processing the text file: " + textFile);
+        Metrics.TextFileEvent event = new Metrics.TextFileEvent();
+        event.begin();
+        long fileStart = System.nanoTime();
+        if (checkpointing || incremental) {
+            long lines = processFileCheckpointed(Path.of(textFile), Path.of(outputFile));
+            Metrics.get().fileProcessed(textFile, lines, event, System.nanoTime() - fileStart);
+            System.out.println("Successfully processed text file and wrote output to: " + outputFile);
+            return;
+        }
+        if (streaming) {
+            ReplacementTable resolved = twoPhase ? resolveDistinctWords(textFile) : null;
+            long lines = processFileStreaming(textFile, outputFile, resolved);
+            Metrics.get().fileProcessed(textFile, lines, event, System.nanoTime() - fileStart);
+            System.out.println("Successfully processed text file and wrote output to: " + outputFile);
+            return;
+        }
 
         // Read all lines to maintain order
-        List<String> lines = Files.readAllLines(Paths.get(textFile));
+        List<String> lines = preloaded != null ? preloaded : Files.readAllLines(Paths.get(textFile));
         String[] results = new String[lines.size()];
+        ReplacementTable resolved = twoPhase ? resolveDistinctWords(lines) : null;
 
+        ChunkSizer sizer = getChunkSizer();
+        int calibrated = calibrate(lines, results, sizer, resolved);
         try (var scope = StructuredTaskScope.open()) {
-            for (int i = 0; i < lines.size(); i++) {
-                final int index = i;
-                final String line = lines.get(i);
+            for (int start = calibrated, end; start < lines.size(); start = end) {
+                end = sizer.chunkEnd(lines, start);
+                final int from = start, to = end;
                 scope.fork(() -> {
-                    results[index] = processLine(line);
+                    processChunk(lines, results, from, to, sizer, resolved);
                     return null;
                 });
             }
             scope.join();
         }
 
-        writeFileLines(outputFile, Arrays.asList(results));
+        writeOutput(outputFile, Arrays.asList(results));
+        Metrics.get().fileProcessed(textFile, lines.size(), event, System.nanoTime() - fileStart);
         System.out.println("Successfully processed text file and wrote output to: " + outputFile);
     }
 
     /**
-     * Processes a single line of text, simplifying each word.
+     * Processes a text file in bounded windows. Each window's lines are forked in chunks as soon as the window
+     * is read, and windows are written strictly in the order they were read, so output order is preserved and
+     * the first output is encoded as soon as the first window completes. At most maxInFlight windows are held
+     * at once, so peak memory depends on the window size and not on the size of the file. The output goes
+     * through a ChannelLineWriter, which writes to disk whenever a buffer fills, in the background when
+     * write-behind is enabled.
+     *
+     * <p><b>Time Complexity:</b> O(n), where n is the number of lines in the file, with memory bounded by
+     * windowSize * maxInFlight lines.</p>
+     *
+     * @param textFile   The path to the input text file
+     * @param outputFile The path to the output file
+     * @param resolved   the replacements resolved in advance, or null to resolve each word as it is met
+     * @return the number of lines processed
+     * @throws Throwable If an error occurs during file processing
+     */
+    private long processFileStreaming(String textFile, String outputFile, ReplacementTable resolved) throws Throwable {
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(textFile));
+             ChannelLineWriter writer = ChannelLineWriter.open(Paths.get(outputFile), isWriteBehind())) {
+            return processWindows(reader::readLine, writer, outputFile, resolved, window -> {
+            });
+        }
+    }
+
+    /**
+     * Processes a text file in committed segments, one window each, resuming from the output's checkpoint if
+     * it has a valid one. After each window is written, the output is forced to disk and then the checkpoint
+     * is replaced, so the checkpoint never runs ahead of the output; output written after the last checkpoint
+     * is truncated away when the run resumes.
+     *
+     * <p><b>Time Complexity:</b> O(n), where n is the number of lines after the checkpoint, with memory
+     * bounded as in streaming mode.</p>
+     *
+     * @param textFile   The path to the input text file
+     * @param outputFile The path to the output file
+     * @return the number of lines processed by this run
+     * @throws Throwable If an error occurs during file processing
+     */
+    private long processFileCheckpointed(Path textFile, Path outputFile) throws Throwable {
+        Checkpoint checkpoint = Checkpoint.resume(textFile, outputFile);
+        long startOffset = checkpoint == null ? 0 : checkpoint.inputOffset();
+        long startLine = checkpoint == null ? 0 : checkpoint.lineNumber();
+        long outputLength = checkpoint == null ? 0 : checkpoint.outputLength();
+        if (checkpoint != null) {
+            System.out.println("Resuming after line " + startLine + " (byte " + startOffset + ") from checkpoint");
+        }
+
+        ReplacementTable resolved = null;
+        if (twoPhase) {
+            try (OffsetLineReader reader = new OffsetLineReader(textFile, startOffset, incremental)) {
+                resolved = resolveDistinctWords(reader::readLine);
+            }
+        }
+
+        long[] committedLines = {startLine};
+        long lines;
+        try (FileChannel channel = FileChannel.open(outputFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             OffsetLineReader reader = new OffsetLineReader(textFile, startOffset, incremental);
+             ChannelLineWriter writer = new ChannelLineWriter(channel, ChannelLineWriter.DEFAULT_BUFFER_SIZE, isWriteBehind())) {
+            channel.truncate(outputLength);
+            channel.position(outputLength);
+            lines = processWindows(source(reader, Long.MAX_VALUE), writer, outputFile.toString(), resolved, window -> {
+                writer.flush();
+                channel.force(false);
+                committedLines[0] += window.lines.size();
+                Checkpoint.of(textFile, window.endOffset, committedLines[0], channel.position()).write(outputFile);
+            });
+        }
+
+        if (lines == 0 && checkpoint != null) {
+            System.out.println("No new input after line " + startLine);
+        }
+        if (!incremental) {
+            Files.deleteIfExists(Checkpoint.sidecar(outputFile));
+        }
+        return lines;
+    }
+
+    /**
+     * Processes the lines of one byte range of a text file, as a worker of a sharded run, writing them to their
+     * own output file in streaming windows. The range must start at the beginning of a line; every line that
+     * starts before its end is processed, so ranges split at line starts process every line exactly once.
+     *
+     * <p><b>Time Complexity:</b> O(n), where n is the number of lines in the range, with memory bounded as in
+     * streaming mode.</p>
+     *
+     * @param textFile   The path to the input text file
+     * @param start      the byte offset of the first line of the range
+     * @param end        the byte offset just past the range
+     * @param outputFile The path to the output file for the range
+     * @return the number of lines processed
+     * @throws Throwable If an error occurs during file processing
+     */
+    long processRange(Path textFile, long start, long end, Path outputFile) throws Throwable {
+        Metrics.TextFileEvent event = new Metrics.TextFileEvent();
+        event.begin();
+        long rangeStart = System.nanoTime();
+        ReplacementTable resolved = null;
+        if (twoPhase) {
+            try (OffsetLineReader reader = new OffsetLineReader(textFile, start, false)) {
+                resolved = resolveDistinctWords(source(reader, end));
+            }
+        }
+
+        long lines;
+        try (OffsetLineReader reader = new OffsetLineReader(textFile, start, false);
+             ChannelLineWriter writer = ChannelLineWriter.open(outputFile, isWriteBehind())) {
+            lines = processWindows(source(reader, end), writer, outputFile.toString(), resolved, window -> {
+            });
+        }
+        Metrics.get().fileProcessed(textFile + " [" + start + ", " + end + ")", lines, event, System.nanoTime() - rangeStart);
+        return lines;
+    }
+
+    /**
+     * Reads the lines of a reader that start before an end offset.
+     */
+    private static LineSource source(OffsetLineReader reader, long end) {
+        return new LineSource() {
+            @Override
+            public String readLine() throws IOException {
+                return reader.offset() < end ? reader.readLine() : null;
+            }
+
+            @Override
+            public long offset() {
+                return reader.offset();
+            }
+        };
+    }
+
+    /**
+     * Reads a source in bounded windows. Each window's lines are forked in chunks as soon as the window is
+     * read, and windows are written strictly in the order they were read, each followed by the committer, so
+     * output order is preserved and the first output is encoded as soon as the first window completes. At
+     * most maxInFlight windows are held at once, so peak memory depends on the window size and not on the
+     * size of the file.
+     *
+     * <p>A chunk never fails its subtask, which would cancel the scope and leave later chunks unforked and
+     * their windows waiting forever. Whatever it throws is recorded on its window and on the run, chunks that
+     * start after a failure skip their lines and mark their own window failed, and no further windows are
+     * read; writing stops at the first failed window, so no window with missing results is written or
+     * committed.</p>
+     */
+    private long processWindows(LineSource source, ChannelLineWriter writer, String outputFile, ReplacementTable resolved,
+                                WindowCommitter committer) throws Throwable {
+        ChunkSizer sizer = getChunkSizer();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        try (var scope = StructuredTaskScope.open()) {
+            ArrayDeque<Window> inFlight = new ArrayDeque<>(maxInFlight);
+            long lineCount = 0;
+
+            List<String> lines = readWindow(source);
+            while (!lines.isEmpty() && failure.get() == null) {
+                if (inFlight.size() == maxInFlight) {
+                    Window written = inFlight.poll();
+                    writeWindow(written, writer, outputFile);
+                    committer.commit(written);
+                }
+                lineCount += lines.size();
+                String[] results = new String[lines.size()];
+                int calibrated = calibrate(lines, results, sizer, resolved);
+                List<Integer> chunkEnds = new ArrayList<>();
+                for (int start = calibrated; start < lines.size(); start = chunkEnds.get(chunkEnds.size() - 1)) {
+                    chunkEnds.add(sizer.chunkEnd(lines, start));
+                }
+                Window window = new Window(lines, results, source.offset(), chunkEnds.size());
+                inFlight.add(window);
+                int start = calibrated;
+                for (int end : chunkEnds) {
+                    final int from = start, to = end;
+                    scope.fork(() -> {
+                        try {
+                            Throwable earlier = failure.get();
+                            if (earlier != null) {
+                                window.failure = earlier;
+                            } else {
+                                processChunk(window.lines, window.results, from, to, sizer, resolved);
+                            }
+                        } catch (Throwable e) {
+                            failure.compareAndSet(null, e);
+                            window.failure = e;
+                        } finally {
+                            window.remaining.countDown();
+                        }
+                        return null;
+                    });
+                    start = end;
+                }
+                lines = readWindow(source);
+            }
+
+            while (!inFlight.isEmpty()) {
+                Window written = inFlight.poll();
+                writeWindow(written, writer, outputFile);
+                committer.commit(written);
+            }
+            scope.join();
+            return lineCount;
+        }
+    }
+
+    /**
+     * Collects the distinct words of every line and resolves them in one batch.
+     *
+     * <p><b>Time Complexity:</b> O(c + w * m), where c is the number of characters in the lines, w is the
+     * number of distinct words and m is the cost of one search.</p>
+     */
+    private ReplacementTable resolveDistinctWords(List<String> lines) throws InterruptedException {
+        Set<String> words = ConcurrentHashMap.newKeySet();
+        collectWords(lines, words);
+        return resolve(words);
+    }
+
+    /**
+     * Collects the distinct words of a file, read one window at a time so memory holds only the window and
+     * the distinct words, and resolves them in one batch.
+     *
+     * <p><b>Time Complexity:</b> O(c + w * m), where c is the number of characters in the file, w is the
+     * number of distinct words and m is the cost of one search.</p>
+     */
+    private ReplacementTable resolveDistinctWords(String textFile) throws IOException, InterruptedException {
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(textFile))) {
+            return resolveDistinctWords(reader::readLine);
+        }
+    }
+
+    private ReplacementTable resolveDistinctWords(LineSource source) throws IOException, InterruptedException {
+        Set<String> words = ConcurrentHashMap.newKeySet();
+        List<String> lines;
+        while (!(lines = readWindow(source)).isEmpty()) {
+            collectWords(lines, words);
+        }
+        return resolve(words);
+    }
+
+    private ReplacementTable resolve(Set<String> words) throws InterruptedException {
+        long start = System.nanoTime();
+        ReplacementTable resolved = mapGoogle1000.resolveAll(words);
+        System.out.printf("Resolved %d distinct words in %.1f ms%n", resolved.size(), (System.nanoTime() - start) / 1e6);
+        return resolved;
+    }
+
+    /**
+     * Adds the words of the lines that are not Google 1000 words to a concurrent set, scanning the lines in
+     * parallel chunks.
+     */
+    private void collectWords(List<String> lines, Set<String> words) throws InterruptedException {
+        ChunkSizer sizer = getChunkSizer();
+        try (var scope = StructuredTaskScope.open()) {
+            for (int start = 0, end; start < lines.size(); start = end) {
+                end = sizer.chunkEnd(lines, start);
+                final int from = start, to = end;
+                scope.fork(() -> {
+                    LineSimplifier simplifier = new LineSimplifier(mapGoogle1000);
+                    for (int i = from; i < to; i++) {
+                        simplifier.collectWords(lines.get(i), words);
+                    }
+                    return null;
+                });
+            }
+            scope.join();
+        }
+    }
+
+    /**
+     * While automatic chunk sizing has no measurement, processes the first chunk on the calling thread, so
+     * that the chunks planned after it are sized from its measured cost rather than all having the initial
+     * size. Returns the index of the first line left to process.
+     *
+     * <p><b>Time Complexity:</b> O(c * w), where c is the number of lines in the sample chunk and w is the
+     * average number of words per line.</p>
+     */
+    private int calibrate(List<String> lines, String[] results, ChunkSizer sizer, ReplacementTable resolved) {
+        if (sizer.isCalibrated() || lines.isEmpty()) {
+            return 0;
+        }
+        int end = sizer.chunkEnd(lines, 0);
+        processChunk(lines, results, 0, end, sizer, resolved);
+        return end;
+    }
+
+    /**
+     * Processes one chunk of lines, storing each result at the same index as its line, and reports the
+     * chunk's cost to the sizer.
+     *
+     * <p><b>Time Complexity:</b> O(c * w), where c is the number of lines in the chunk and w is the
+     * average number of words per line.</p>
+     */
+    private void processChunk(List<String> lines, String[] results, int from, int to, ChunkSizer sizer,
+                              ReplacementTable resolved) {
+        long start = System.nanoTime();
+        LineSimplifier simplifier = new LineSimplifier(mapGoogle1000, resolved);
+        for (int i = from; i < to; i++) {
+            results[i] = simplifier.simplify(lines.get(i));
+        }
+        sizer.record(to - from, System.nanoTime() - start);
+    }
+
+    private List<String> readWindow(LineSource source) throws IOException {
+        List<String> lines = new ArrayList<>(windowSize);
+        String line;
+        while (lines.size() < windowSize && (line = source.readLine()) != null) {
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    private void writeWindow(Window window, ChannelLineWriter writer, String outputFile) throws IOException, InterruptedException {
+        window.remaining.await();
+        if (window.failure instanceof Error error) {
+            throw error;
+        }
+        if (window.failure != null) {
+            throw new IOException("Failed to process line", window.failure);
+        }
+        Metrics.OutputWriteEvent event = new Metrics.OutputWriteEvent();
+        event.begin();
+        long start = System.nanoTime();
+        for (String result : window.results) {
+            writer.writeLine(result);
+        }
+        Metrics.get().outputWritten(outputFile, window.results.length, event, System.nanoTime() - start);
+    }
+
+    private void writeOutput(String outputFile, List<String> lines) throws IOException {
+        Metrics.OutputWriteEvent event = new Metrics.OutputWriteEvent();
+        event.begin();
+        long start = System.nanoTime();
+        writeFileLines(outputFile, lines);
+        Metrics.get().outputWritten(outputFile, lines.size(), event, System.nanoTime() - start);
+    }
+
+    /**
+     * Processes a single line of text, simplifying each word while keeping its punctuation and capitalization.
+     * The LineSimplifier and its buffers are borrowed from a small pool and returned after the line, so callers
+     * such as the server's request handlers, which each run on a new virtual thread, reuse them rather than
+     * allocating a tokenizer per call.
+     *
+     * <p><b>Time Complexity:</b> O(c + w * s), where c is the number of characters in the line, w is the
+     * number of words that need a search and s is the cost of one search.</p>
      *
      * @param line The line of text to process
      * @return The processed line
      */
-    private String processLine(String line) {
-        StringBuilder processedLine = new StringBuilder();
-        String[] words = line.split("\\s+");
-        for (String word : words) {
-            if (word.isEmpty()) continue;
-            // Basic cleanup of punctuation to find the core word
-            String cleanedWord = word.toLowerCase().replaceAll("[^a-z']", "");
-            String processedWord = mapGoogle1000.processWord(cleanedWord);
-            
-            // Re-add the processed word (simplified or original)
-            processedLine.append(processedWord).append(" ");
-        }
-        return processedLine.toString().trim();
+    public String processLine(String line) {
+        int slot = Math.floorMod(System.identityHashCode(Thread.currentThread()), POOLED_SIMPLIFIERS);
+        LineSimplifier simplifier = simplifiers.getAndSet(slot, null);
+        if (simplifier == null) {
+            simplifier = new LineSimplifier(mapGoogle1000);
+        }
+        try {
+            return simplifier.simplify(line);
+        } finally {
+            // A slot taken meanwhile by another line keeps its own simplifier; this one is then dropped
+            simplifiers.compareAndSet(slot, null, simplifier);
+        }
     }
 
     @Override
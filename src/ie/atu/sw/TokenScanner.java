@@ -0,0 +1,67 @@
+package ie.atu.sw;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The TokenScanner class gathers the distinct cleaned words of one or more text files, before any embeddings
+ * are loaded, so that only the vectors those words need are parsed. Words are cleaned by LineSimplifier exactly
+ * as they will be when the text is simplified. It extends FileProcessor for its concurrent line processing.
+ */
+public class TokenScanner extends FileProcessor {
+    private final Set<String> tokens = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Adds the cleaned words of a line to the set of distinct tokens.
+     *
+     * <p><b>Time Complexity:</b> O(c), where c is the number of characters in the line.</p>
+     *
+     * @param line The line of text to process
+     */
+    @Override
+    void process(String line) {
+        new LineSimplifier(null).collectTokens(line, tokens);
+    }
+
+    /**
+     * Adds the cleaned words of every line of a chunk to the set of distinct tokens, with one tokenizer
+     * created for the chunk and reused for each of its lines.
+     *
+     * <p><b>Time Complexity:</b> O(c), where c is the number of characters in the chunk.</p>
+     *
+     * @param chunk the lines to scan
+     */
+    @Override
+    void processChunk(List<String> chunk) {
+        LineSimplifier tokenizer = new LineSimplifier(null);
+        for (String line : chunk) {
+            tokenizer.collectTokens(line, tokens);
+        }
+    }
+
+    /**
+     * Returns the distinct tokens of every file scanned so far.
+     *
+     * <p><b>Time Complexity:</b> O(1), as it simply returns the reference to the set.</p>
+     *
+     * @return the concurrent set of distinct cleaned words
+     */
+    public Set<String> getTokens() {
+        return tokens;
+    }
+
+    /**
+     * Scans a text file, adding its distinct words to the tokens already gathered.
+     *
+     * <p><b>Time Complexity:</b> O(c), where c is the number of characters in the file.</p>
+     *
+     * @param textFile   the path to the text file to scan
+     * @param outputFile the path to the output file (not used in this implementation)
+     * @throws Throwable if an error occurs while reading the file
+     */
+    @Override
+    void processFile(String textFile, String outputFile) throws Throwable {
+        loadAndProcessLines(textFile);
+    }
+}
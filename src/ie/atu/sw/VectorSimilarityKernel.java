@@ -0,0 +1,134 @@
+package ie.atu.sw;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The VectorSimilarityKernel class implements SimilarityKernel with the incubating Vector API, using the
+ * widest vector shape the host supports (for example 8 floats per lane group with AVX2, 16 with AVX-512).
+ * The tail of each range that does not fill a whole vector is finished with scalar arithmetic.
+ *
+ * <p>This class must only be loaded through {@link SimilarityKernel#select()}, as it links against the
+ * jdk.incubator.vector module.</p>
+ */
+public class VectorSimilarityKernel implements SimilarityKernel {
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+
+    /**
+     * Calculates the dot product of two ranges of float arrays with fused multiply-adds.
+     *
+     * <p><b>Time Complexity:</b> O(n / w), where n is the length of the ranges and w is the vector width.</p>
+     */
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        FloatVector sum = FloatVector.zero(FLOATS);
+        int i = 0;
+        int bound = FLOATS.loopBound(length);
+        for (; i < bound; i += FLOATS.length()) {
+            FloatVector va = FloatVector.fromArray(FLOATS, a, aOffset + i);
+            FloatVector vb = FloatVector.fromArray(FLOATS, b, bOffset + i);
+            sum = va.fma(vb, sum);
+        }
+
+        float dotProduct = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            dotProduct += a[aOffset + i] * b[bOffset + i];
+        }
+        return dotProduct;
+    }
+
+    /**
+     * Scores one query against every row of a row-major matrix. Rows are scored four at a time so each
+     * slice of the query is loaded once for four rows.
+     *
+     * <p><b>Time Complexity:</b> O(r * n / w), where r is the number of rows, n is the row length and w is
+     * the vector width.</p>
+     */
+    @Override
+    public void scoreAll(float[] query, float[] matrix, int rows, float[] scores) {
+        int dimension = query.length;
+        int bound = FLOATS.loopBound(dimension);
+        int row = 0;
+
+        for (; row + 4 <= rows; row += 4) {
+            int o0 = row * dimension;
+            int o1 = o0 + dimension;
+            int o2 = o1 + dimension;
+            int o3 = o2 + dimension;
+            FloatVector s0 = FloatVector.zero(FLOATS);
+            FloatVector s1 = FloatVector.zero(FLOATS);
+            FloatVector s2 = FloatVector.zero(FLOATS);
+            FloatVector s3 = FloatVector.zero(FLOATS);
+
+            int i = 0;
+            for (; i < bound; i += FLOATS.length()) {
+                FloatVector q = FloatVector.fromArray(FLOATS, query, i);
+                s0 = q.fma(FloatVector.fromArray(FLOATS, matrix, o0 + i), s0);
+                s1 = q.fma(FloatVector.fromArray(FLOATS, matrix, o1 + i), s1);
+                s2 = q.fma(FloatVector.fromArray(FLOATS, matrix, o2 + i), s2);
+                s3 = q.fma(FloatVector.fromArray(FLOATS, matrix, o3 + i), s3);
+            }
+
+            float d0 = s0.reduceLanes(VectorOperators.ADD);
+            float d1 = s1.reduceLanes(VectorOperators.ADD);
+            float d2 = s2.reduceLanes(VectorOperators.ADD);
+            float d3 = s3.reduceLanes(VectorOperators.ADD);
+            for (; i < dimension; i++) {
+                float q = query[i];
+                d0 += q * matrix[o0 + i];
+                d1 += q * matrix[o1 + i];
+                d2 += q * matrix[o2 + i];
+                d3 += q * matrix[o3 + i];
+            }
+            scores[row] = d0;
+            scores[row + 1] = d1;
+            scores[row + 2] = d2;
+            scores[row + 3] = d3;
+        }
+
+        for (; row < rows; row++) {
+            scores[row] = dot(query, 0, matrix, row * dimension, dimension);
+        }
+    }
+
+    /**
+     * Calculates the cosine similarity of two vectors, accumulating the dot product and both norms in
+     * a single vectorized pass.
+     *
+     * <p><b>Time Complexity:</b> O(n / w), where n is the length of the vectors and w is the vector width.</p>
+     */
+    @Override
+    public double cosine(double[] a, double[] b) {
+        DoubleVector dotSum = DoubleVector.zero(DOUBLES);
+        DoubleVector norm1Sum = DoubleVector.zero(DOUBLES);
+        DoubleVector norm2Sum = DoubleVector.zero(DOUBLES);
+        int i = 0;
+        int bound = DOUBLES.loopBound(a.length);
+        for (; i < bound; i += DOUBLES.length()) {
+            DoubleVector va = DoubleVector.fromArray(DOUBLES, a, i);
+            DoubleVector vb = DoubleVector.fromArray(DOUBLES, b, i);
+            dotSum = va.fma(vb, dotSum);
+            norm1Sum = va.fma(va, norm1Sum);
+            norm2Sum = vb.fma(vb, norm2Sum);
+        }
+
+        double dotProduct = dotSum.reduceLanes(VectorOperators.ADD);
+        double norm1 = norm1Sum.reduceLanes(VectorOperators.ADD);
+        double norm2 = norm2Sum.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            dotProduct += a[i] * b[i];
+            norm1 += a[i] * a[i];
+            norm2 += b[i] * b[i];
+        }
+
+        return dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
+    }
+
+    @Override
+    public String name() {
+        return "vector (" + FLOATS.vectorBitSize() + "-bit)";
+    }
+}
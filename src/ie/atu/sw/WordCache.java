@@ -0,0 +1,288 @@
+package ie.atu.sw;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The WordCache class is a thread-safe, size-bounded cache of the replacements found by the similarity
+ * search, placed in front of findMostSimilarWord so repeated rare words are only searched once.
+ *
+ * <p>The cache is split into independently locked segments, selected by the word's hash, so the many virtual
+ * threads forked by TextProcessor rarely contend on the same lock. Locks are ReentrantLocks rather than
+ * synchronized blocks so a waiting virtual thread never pins its carrier. Each segment evicts by the
+ * configured policy once it is full.</p>
+ *
+ * <p>The cache extends FileProcessor so a dump written by a previous run can be loaded back to warm it.
+ * A dump starts with the same fingerprint header as a persisted ReplacementTable, followed by one
+ * {@code word,replacement} pair per line; a dump whose fingerprint does not match the cache's is not loaded,
+ * as its replacements were found with other source files.</p>
+ */
+public class WordCache extends FileProcessor {
+    /**
+     * The order in which entries are evicted once a segment is full.
+     */
+    public enum EvictionPolicy {
+        /** Evicts the entry that was least recently read or written. */
+        LRU,
+        /** Evicts the entry that was added first, ignoring reads. */
+        FIFO
+    }
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final int capacity;
+    private final EvictionPolicy policy;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private volatile String fingerprint;
+
+    @SuppressWarnings("serial")
+    private final class Segment extends LinkedHashMap<String, String> {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final int segmentCapacity;
+
+        Segment(int segmentCapacity) {
+            super(16, 0.75f, policy == EvictionPolicy.LRU);
+            this.segmentCapacity = segmentCapacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            if (size() > segmentCapacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param capacity the maximum number of entries held across all segments
+     * @param policy   the eviction policy
+     */
+    public WordCache(int capacity, EvictionPolicy policy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        this.policy = policy;
+        int segmentCapacity = Math.max(1, (capacity + SEGMENTS - 1) / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+    }
+
+    private Segment segmentFor(String word) {
+        int hash = word.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    /**
+     * Looks up the cached replacement for a word, counting a hit or a miss.
+     *
+     * <p><b>Time Complexity:</b> O(1), a single hash lookup in one segment.</p>
+     *
+     * @param word the word to look up
+     * @return the cached replacement, or null if the word is not cached
+     */
+    public String get(String word) {
+        Segment segment = segmentFor(word);
+        String replacement;
+        segment.lock.lock();
+        try {
+            replacement = segment.get(word);
+        } finally {
+            segment.lock.unlock();
+        }
+
+        if (replacement == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return replacement;
+    }
+
+    /**
+     * Caches the replacement for a word, evicting an entry from its segment if the segment is full.
+     *
+     * <p><b>Time Complexity:</b> O(1), a single insertion into one segment.</p>
+     *
+     * @param word        the word
+     * @param replacement the replacement found for the word
+     */
+    public void put(String word, String replacement) {
+        Segment segment = segmentFor(word);
+        segment.lock.lock();
+        try {
+            segment.put(word, replacement);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of cached entries.
+     *
+     * <p><b>Time Complexity:</b> O(s), where s is the number of segments.</p>
+     *
+     * @return the number of entries across all segments
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                size += segment.size();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of lookups that found a cached replacement.
+     *
+     * @return the hit count
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups that found nothing cached.
+     *
+     * @return the miss count
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of entries evicted to stay within capacity.
+     *
+     * @return the eviction count
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Summarises the cache configuration and counters.
+     *
+     * @return a one-line report of the cache statistics
+     */
+    public String stats() {
+        long hitCount = getHits();
+        long total = hitCount + getMisses();
+        double hitRate = total == 0 ? 0 : 100.0 * hitCount / total;
+        return String.format("Cache %s capacity %d: %d entries, %d hits, %d misses (%.1f%% hit rate), %d evictions",
+                policy, capacity, size(), hitCount, getMisses(), hitRate, getEvictions());
+    }
+
+    /**
+     * Returns the fingerprint of the source files the cached replacements were found with.
+     *
+     * @return the fingerprint, or null if none has been recorded
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Records the fingerprint of the source files the cached replacements are found with, which is written
+     * to a dump and checked when one is loaded.
+     *
+     * @param fingerprint the fingerprint of the source files, as built by ReplacementTable.fingerprint
+     */
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Checks whether a dump was written for the same source files as this cache, by its header line.
+     *
+     * <p><b>Time Complexity:</b> O(1), only the first line is read.</p>
+     *
+     * @param filePath the path to the cache dump
+     * @return true if the dump's fingerprint matches this cache's
+     * @throws IOException if the file cannot be read
+     */
+    public boolean isDumpCurrent(String filePath) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(Path.of(filePath))) {
+            String header = reader.readLine();
+            return fingerprint != null && (ReplacementTable.HEADER_PREFIX + fingerprint).equals(header);
+        }
+    }
+
+    /**
+     * Writes every cached entry to a file, after the fingerprint header, so a later run can be warmed from it.
+     *
+     * <p><b>Time Complexity:</b> O(n), where n is the number of cached entries.</p>
+     *
+     * @param filePath the path to the file where the entries will be written
+     * @throws IOException if an I/O error occurs while writing to the file
+     */
+    public void dump(String filePath) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add(ReplacementTable.HEADER_PREFIX + (fingerprint == null ? "" : fingerprint));
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                for (var entry : segment.entrySet()) {
+                    lines.add(entry.getKey() + "," + entry.getValue());
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        writeFileLines(filePath, lines);
+    }
+
+    /**
+     * Processes a single line of a cache dump by adding its entry to the cache. The header, which starts with
+     * a comma, is skipped.
+     *
+     * <p><b>Time Complexity:</b> O(n), where n is the length of the line.</p>
+     *
+     * @param line The line of text to process
+     * @throws Exception if an error occurs during processing
+     */
+    @Override
+    void process(String line) throws Exception {
+        int comma = line.indexOf(',');
+        if (comma > 0) {
+            put(line.substring(0, comma), line.substring(comma + 1));
+        }
+    }
+
+    /**
+     * Warms the cache from a dump written by a previous run, if its fingerprint matches this cache's;
+     * otherwise the dump is ignored.
+     *
+     * <p><b>Time Complexity:</b> O(n), where n is the number of lines in the file.</p>
+     *
+     * @param textFile   the path to the cache dump
+     * @param outputFile the path to the output file (not used in this implementation)
+     * @throws Throwable if any other error occurs during processing
+     */
+    @Override
+    void processFile(String textFile, String outputFile) throws Throwable {
+        if (isDumpCurrent(textFile)) {
+            loadAndProcessLines(textFile);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package ie.atu.sw;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * The WordTable class is an immutable open-addressing hash table of words that can be queried with a range
+ * of a char array as well as with a String, so a tokenizer can look up a word it has just scanned into a
+ * reusable buffer without allocating a String for it. Each word is given a dense id in the order it was added.
+ *
+ * <p>Slots are probed linearly from the word's String-compatible hash code; the table is kept at most half
+ * full so probe sequences stay short.</p>
+ *
+ * <p>A table can also be built over the rows of a store's word array, whose ids are then the row numbers, or
+ * as an extension of another table that keeps its ids and only interns the words it lacks, so a vocabulary
+ * can grow by a few words without copying the table it starts from.</p>
+ */
+public class WordTable {
+    private final WordTable base;
+    private final int baseSize;
+    private final String[] words;
+    private final String[] slots;
+    private final int[] slotIds;
+    private final int mask;
+
+    /**
+     * Builds a table from a collection of words. Duplicates are given the id of their first occurrence.
+     *
+     * <p><b>Time Complexity:</b> O(n * l), where n is the number of words and l is the average word length.</p>
+     *
+     * @param words the words to add
+     */
+    public WordTable(Collection<String> words) {
+        this(null, words);
+    }
+
+    /**
+     * Builds a table that extends another: every word of the base table keeps its id, and each of the given
+     * words the base table lacks is given the next id after the base table's. The base table is shared, not
+     * copied.
+     *
+     * <p><b>Time Complexity:</b> O(n * l), where n is the number of words given and l is the average word
+     * length.</p>
+     *
+     * @param base  the table to extend, or null for none
+     * @param words the words to add
+     */
+    public WordTable(WordTable base, Collection<String> words) {
+        this.base = base;
+        this.baseSize = base == null ? 0 : base.size();
+        int capacity = Integer.highestOneBit(Math.max(4, words.size() * 2 - 1)) << 1;
+        this.slots = new String[capacity];
+        this.slotIds = new int[capacity];
+        this.mask = capacity - 1;
+
+        String[] byId = new String[words.size()];
+        int size = 0;
+        for (String word : words) {
+            if (base != null && base.id(word) >= 0) {
+                continue;
+            }
+            int slot = spread(word.hashCode()) & mask;
+            while (slots[slot] != null && !slots[slot].equals(word)) {
+                slot = (slot + 1) & mask;
+            }
+            if (slots[slot] == null) {
+                slots[slot] = word;
+                slotIds[slot] = baseSize + size;
+                byId[size++] = word;
+            }
+        }
+        this.words = size == byId.length ? byId : Arrays.copyOf(byId, size);
+    }
+
+    private WordTable(String[] rows) {
+        this.base = null;
+        this.baseSize = 0;
+        int capacity = Integer.highestOneBit(Math.max(4, rows.length * 2 - 1)) << 1;
+        this.slots = new String[capacity];
+        this.slotIds = new int[capacity];
+        this.mask = capacity - 1;
+        this.words = rows;
+        for (int row = 0; row < rows.length; row++) {
+            int slot = spread(rows[row].hashCode()) & mask;
+            while (slots[slot] != null && !slots[slot].equals(rows[row])) {
+                slot = (slot + 1) & mask;
+            }
+            if (slots[slot] == null) {
+                slots[slot] = rows[row];
+                slotIds[slot] = row;
+            }
+        }
+    }
+
+    /**
+     * Builds a table over the rows of a word array, without copying it: the id of a word is the row it first
+     * appears in, and the size is the number of rows, so the id of any word is a valid row. A word repeated in
+     * a later row is only found at its first row.
+     *
+     * <p><b>Time Complexity:</b> O(n * l), where n is the number of rows and l is the average word length.</p>
+     *
+     * @param rows the words in row order, which must not be modified afterwards
+     * @return the table
+     */
+    public static WordTable ofRows(String[] rows) {
+        return new WordTable(rows);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Looks up the id of a word held in a range of a char array, without allocating.
+     *
+     * <p><b>Time Complexity:</b> O(l) expected, where l is the length of the word.</p>
+     *
+     * @param chars  the array holding the word
+     * @param offset the index of the first character of the word
+     * @param length the number of characters in the word
+     * @return the id of the word, or -1 if it is not in the table
+     */
+    public int id(char[] chars, int offset, int length) {
+        if (base != null) {
+            int id = base.id(chars, offset, length);
+            if (id >= 0) {
+                return id;
+            }
+        }
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars[offset + i];
+        }
+
+        int slot = spread(hash) & mask;
+        String candidate;
+        while ((candidate = slots[slot]) != null) {
+            if (matches(candidate, chars, offset, length)) {
+                return slotIds[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Looks up the id of a word.
+     *
+     * <p><b>Time Complexity:</b> O(l) expected, where l is the length of the word.</p>
+     *
+     * @param word the word to look up
+     * @return the id of the word, or -1 if it is not in the table
+     */
+    public int id(String word) {
+        if (base != null) {
+            int id = base.id(word);
+            if (id >= 0) {
+                return id;
+            }
+        }
+        int slot = spread(word.hashCode()) & mask;
+        String candidate;
+        while ((candidate = slots[slot]) != null) {
+            if (candidate.equals(word)) {
+                return slotIds[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether a word held in a range of a char array is in the table, without allocating.
+     *
+     * @param chars  the array holding the word
+     * @param offset the index of the first character of the word
+     * @param length the number of characters in the word
+     * @return true if the word is in the table
+     */
+    public boolean contains(char[] chars, int offset, int length) {
+        return id(chars, offset, length) >= 0;
+    }
+
+    /**
+     * Returns the word with a given id.
+     *
+     * @param id the id of the word
+     * @return the word
+     */
+    public String word(int id) {
+        return id < baseSize ? base.word(id) : words[id - baseSize];
+    }
+
+    /**
+     * Returns the number of ids in the table, which is the number of distinct words unless the table was
+     * built over rows that repeat a word.
+     *
+     * @return the number of ids
+     */
+    public int size() {
+        return baseSize + words.length;
+    }
+
+    private static boolean matches(String word, char[] chars, int offset, int length) {
+        if (word.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (word.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}